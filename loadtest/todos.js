@@ -0,0 +1,53 @@
+// k6 부하 테스트: 플랫폼 스레드 모드 vs 가상 스레드 모드 비교용
+// 실행: k6 run -e BASE_URL=http://localhost:8080 -e VUS=400 loadtest/todos.js
+// 각 가상 유저가 회원가입/로그인 후 todo 생성 + 목록/페이지 조회를 반복
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+
+export const options = {
+    scenarios: {
+        todos: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: Number(__ENV.VUS || 400) }, // 점점 늘리기
+                { duration: '1m', target: Number(__ENV.VUS || 400) },  // 유지
+                { duration: '10s', target: 0 },
+            ],
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+const JSON_HEADERS = { 'Content-Type': 'application/json' };
+
+// 가상 유저마다 한 번만 로그인
+let token;
+
+function login() {
+    const user = JSON.stringify({ username: `load-${__VU}`, password: 'load1234' });
+    http.post(`${BASE_URL}/api/auth/signup`, user, { headers: JSON_HEADERS }); // 이미 있으면 409, 무시
+    const res = http.post(`${BASE_URL}/api/auth/login`, user, { headers: JSON_HEADERS });
+    return res.json('data.accessToken');
+}
+
+export default function () {
+    if (!token) {
+        token = login();
+    }
+    const headers = { ...JSON_HEADERS, Authorization: `Bearer ${token}` };
+
+    const created = http.post(`${BASE_URL}/api/todos`,
+        JSON.stringify({ title: `todo ${__ITER}`, description: 'load test' }), { headers, tags: { name: 'create' } });
+    check(created, { 'created 201': (r) => r.status === 201 });
+
+    const list = http.get(`${BASE_URL}/api/todos`, { headers, tags: { name: 'list' } });
+    check(list, { 'list 200': (r) => r.status === 200 });
+
+    const page = http.get(`${BASE_URL}/api/todos?size=20`, { headers, tags: { name: 'page' } });
+    check(page, { 'page 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,73 @@
+package com.example.todo.aop;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.helpers.NOPAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import com.example.todo.controller.BenchmarkTarget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+// 컨트롤러 메서드 1번 호출에 LoggingAspect가 더하는 비용
+// direct : aspect 없이 직접 호출
+// advised: aspect 프록시를 거쳐 호출 (timer 기록 + sampleRate 비율만큼 매개변수/결과 로그)
+// logLevel이 INFO면 샘플링된 요청의 로그 이벤트까지 만들고, WARN이면 레벨 체크에서 끝남
+// 콘솔 출력 비용은 빼기 위해 appender는 아무것도 안 하는 것으로 바꿈
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoggingAspectBenchmark {
+
+    @Param({"INFO", "WARN"})
+    private String logLevel;
+
+    @Param({"0.0", "0.01", "1.0"})
+    private double sampleRate;
+
+    private BenchmarkTarget target;
+    private BenchmarkTarget advised;
+
+    @Setup
+    public void setUp() throws Exception {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+        NOPAppender<ILoggingEvent> nop = new NOPAppender<>();
+        nop.setContext(context);
+        nop.start();
+
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.addAppender(nop);
+        context.getLogger(LoggingAspect.class).setLevel(Level.toLevel(logLevel));
+
+        target = new BenchmarkTarget();
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        LoggingAspect aspect = new LoggingAspect(new SimpleMeterRegistry());
+        // @Value로 주입되는 값 직접 넣기
+        Field rate = LoggingAspect.class.getDeclaredField("sampleRate");
+        rate.setAccessible(true);
+        rate.set(aspect, sampleRate);
+        factory.addAspect(aspect);
+        advised = factory.getProxy();
+    }
+
+
+    @Benchmark
+    public String direct() {
+        return target.handle(1L);
+    }
+
+
+    @Benchmark
+    public String advised() {
+        return advised.handle(1L);
+    }
+}
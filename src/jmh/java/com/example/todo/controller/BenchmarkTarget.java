@@ -0,0 +1,10 @@
+package com.example.todo.controller;
+
+// LoggingAspect 벤치마크용 대상
+// aspect의 pointcut(controller 패키지)에 걸리도록 이 패키지에 둠
+public class BenchmarkTarget {
+
+    public String handle(Long id) {
+        return "todo-" + id;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.todo.dto;
+
+import com.example.todo.entity.Todo;
+import com.example.todo.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 엔티티 -> dto 변환 비용 (목록 조회 시 todo 개수만큼 호출됨)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TodoDtoMappingBenchmark {
+
+    private Todo todo;
+
+    @Setup
+    public void setUp() {
+        User user = User.builder()
+                .id(1L)
+                .username("benchUser")
+                .password("password")
+                .role("ROLE_USER")
+                .build();
+
+        todo = Todo.builder()
+                .id(1L)
+                .title("benchmark title")
+                .description("benchmark description")
+                .completed(false)
+                .user(user)
+                .build();
+    }
+
+
+    @Benchmark
+    public TodoDto changeEntityToDto() {
+        return TodoDto.changeEntityToDto(todo);
+    }
+}
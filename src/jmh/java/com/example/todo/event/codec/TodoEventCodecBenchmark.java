@@ -0,0 +1,70 @@
+package com.example.todo.event.codec;
+
+import com.example.todo.dto.TodoDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 이벤트 인코딩 / 디코딩 처리량 (json vs binary)
+// todo 1개당 바이트 수는 encode 결과의 보조 지표 bytesPerTodo로 같이 나옴 (results.json)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TodoEventCodecBenchmark {
+
+    @Param({"json", "binary"})
+    private String codecName;
+
+    // 1 = 단건 생성 이벤트, 100 = 일괄 생성 이벤트
+    @Param({"1", "100"})
+    private int batch;
+
+    private TodoEventCodec codec;
+    private List<TodoDto> todos;
+    private byte[] encoded;
+
+
+    @Setup
+    public void setUp() {
+        codec = "json".equals(codecName) ? new JsonTodoEventCodec(new ObjectMapper()) : new BinaryTodoEventCodec();
+
+        todos = new ArrayList<>(batch);
+        for(int i = 0; i < batch; i++) {
+            todos.add(TodoDto.builder()
+                    .id(100_000L + i)
+                    .title("장보기 " + i)
+                    .description("우유, 계란, 빵 사오기")
+                    .completed(i % 2 == 0)
+                    .userId(42L)
+                    .version(5_000L + i)
+                    .build());
+        }
+        encoded = codec.encode(todos);
+    }
+
+
+
+    @Benchmark
+    public byte[] encode(EncodedSize size) {
+        byte[] bytes = codec.encode(todos);
+        size.bytesPerTodo = (double) bytes.length / batch;
+        return bytes;
+    }
+
+
+    @Benchmark
+    public List<TodoDto> decode() {
+        return codec.decode(encoded);
+    }
+
+
+    // 인코딩 결과 크기 (todo 1개당 바이트). 처리량 옆에 보조 지표로 기록됨
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public double bytesPerTodo;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.todo.repository;
+
+import com.example.todo.dto.TodoDto;
+import com.example.todo.entity.Todo;
+import com.example.todo.entity.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// 목록 조회: 엔티티(+ user fetch join) 조회 후 dto 변환 vs dto로 바로 조회 (TodoRepository.TODO_DTO)
+// 메모리 h2에 한 유저의 todo를 rows개 넣고 비교
+// 힙 사용량은 gc 프로파일러로: ./gradlew jmh -PjmhIncludes=TodoReadProjectionBenchmark -PjmhProfilers=gc
+// => gc.alloc.rate.norm (호출 1번당 할당 바이트)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TodoReadProjectionBenchmark {
+
+    // 기존 findByUserId + @EntityGraph(attributePaths = "user")와 같은 쿼리
+    private static final String ENTITY_QUERY = "select t from Todo t join fetch t.user where t.user.id = :userId order by t.id";
+    private static final String DTO_QUERY = TodoRepository.TODO_DTO + " where t.user.id = :userId order by t.id";
+
+    @Param({"1000", "10000"})
+    private int rows;
+
+    private SessionFactory sessionFactory;
+    private Long userId;
+
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Todo.class)
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;MODE=PostgreSQL")
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.show_sql", "false")
+                .buildSessionFactory();
+
+        sessionFactory.inTransaction(session -> {
+            User user = User.builder()
+                    .username("benchUser")
+                    // bcrypt 해시 길이와 비슷하게 (엔티티 조회 시 같이 읽힘)
+                    .password("$2a$10$" + "x".repeat(53))
+                    .role("ROLE_USER")
+                    .build();
+            session.persist(user);
+            session.flush();
+            userId = user.getId();
+
+            session.createNativeMutationQuery("insert into todo (id, title, description, completed, version, user_id)"
+                            + " select x, 'benchmark title ' || x, 'benchmark description ' || x, mod(x, 2) = 0, x, :userId"
+                            + " from system_range(1, :rows)")
+                    .setParameter("userId", userId)
+                    .setParameter("rows", rows)
+                    .executeUpdate();
+        });
+    }
+
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+
+
+    @Benchmark
+    public List<TodoDto> entityThenMap() {
+        EntityManager em = sessionFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            List<TodoDto> todos = em.createQuery(ENTITY_QUERY, Todo.class)
+                    .setParameter("userId", userId)
+                    .getResultList()
+                    .stream()
+                    .map(todo -> TodoDto.changeEntityToDto(todo))
+                    .collect(Collectors.toList());
+            em.getTransaction().commit(); // 커밋 시 dirty checking 포함
+            return todos;
+        } finally {
+            em.close();
+        }
+    }
+
+
+    @Benchmark
+    public List<TodoDto> dtoProjection() {
+        EntityManager em = sessionFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            List<TodoDto> todos = em.createQuery(DTO_QUERY, TodoDto.class)
+                    .setParameter("userId", userId)
+                    .getResultList();
+            em.getTransaction().commit();
+            return todos;
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.todo.response;
+
+import com.example.todo.dto.TodoDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// GET /api/todos 응답 (ApiResponse<List<TodoDto>>) json 직렬화 비용. 목록 크기별
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ApiResponseSerializationBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<List<TodoDto>> response;
+
+    @Setup
+    public void setUp() {
+        // 스프링 mvc가 쓰는 것과 같은 기본 설정
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<TodoDto> todos = new ArrayList<>(size);
+        for(int i = 0; i < size; i++) {
+            todos.add(TodoDto.builder()
+                    .id((long) i)
+                    .title("todo " + i)
+                    .description("benchmark description " + i)
+                    .completed(i % 2 == 0)
+                    .userId(1L)
+                    .build());
+        }
+        response = ApiResponse.ok(todos);
+    }
+
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.todo.security;
+
+import com.example.todo.service.BloomFilter;
+import com.example.todo.service.TokenBlacklistService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+// JwtAuthenticationFilter 요청 1번 처리 비용 (헤더 파싱 -> 토큰 검증 -> 블랙리스트 확인 -> 인증 객체 등록)
+// 블랙리스트는 redis 없이 블룸 필터만 사용 (대부분의 요청이 타는 경로)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtAuthenticationFilterBenchmark {
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() throws Exception {
+        JwtTokenProvider provider = JwtBenchmarkSupport.newProvider();
+        filter = new JwtAuthenticationFilter(provider, new BloomOnlyBlacklist());
+        authorization = "Bearer " + provider.generateToken(1L, "benchUser", "ROLE_USER");
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+
+    @Benchmark
+    public MockHttpServletResponse authenticated() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/todos");
+        request.addHeader("Authorization", authorization);
+        return doFilter(request);
+    }
+
+
+    // 토큰 없는 요청 (필터 자체 기본 비용)
+    @Benchmark
+    public MockHttpServletResponse anonymous() throws Exception {
+        return doFilter(new MockHttpServletRequest("GET", "/api/todos"));
+    }
+
+
+
+    private MockHttpServletResponse doFilter(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+
+    // redis 대신 블룸 필터만 확인하는 블랙리스트
+    private static class BloomOnlyBlacklist extends TokenBlacklistService {
+
+        private final BloomFilter bloom = new BloomFilter(100_000, 0.001);
+
+        BloomOnlyBlacklist() {
+            super(null, null, null);
+        }
+
+        @Override
+        public boolean isBlacklisted(String tokenId) {
+            return bloom.mightContain(tokenId);
+        }
+    }
+}
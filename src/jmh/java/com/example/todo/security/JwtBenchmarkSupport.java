@@ -0,0 +1,38 @@
+package com.example.todo.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.reflect.Field;
+
+// 벤치마크에서 스프링 없이 JwtTokenProvider를 만들기 위한 도우미
+public final class JwtBenchmarkSupport {
+
+    // HS256은 최소 256bit 키가 필요
+    public static final String SECRET = "benchmark-secret-key-benchmark-secret-key";
+
+    private JwtBenchmarkSupport() {
+    }
+
+    public static JwtTokenProvider newProvider() throws Exception {
+        return newProvider(10_000);
+    }
+
+    // claimsCacheMaxSize를 아주 작게 주면 검증된 claims 캐시가 사실상 꺼짐 (매번 서명 검증)
+    public static JwtTokenProvider newProvider(long claimsCacheMaxSize) throws Exception {
+        JwtTokenProvider provider = new JwtTokenProvider(new SimpleMeterRegistry());
+
+        // @Value로 주입되는 값 직접 넣기
+        set(provider, "SECRET_KEY", SECRET);
+        set(provider, "claimsCacheMaxSize", claimsCacheMaxSize);
+
+        provider.init();
+        return provider;
+    }
+
+
+    private static void set(JwtTokenProvider provider, String name, Object value) throws Exception {
+        Field field = JwtTokenProvider.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(provider, value);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.todo.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// JwtTokenProvider 토큰 발급 / 검증 비용
+// validateCached  : 같은 토큰 반복 (claims 캐시 hit)
+// validateUncached: 매번 다른 토큰 + 캐시 크기 1 (매번 서명 검증)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtTokenProviderBenchmark {
+
+    private static final int TOKEN_COUNT = 1024; // 2의 제곱수 (index & mask)
+
+    private JwtTokenProvider provider;
+    private JwtTokenProvider uncachedProvider;
+    private String token;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        provider = JwtBenchmarkSupport.newProvider();
+        uncachedProvider = JwtBenchmarkSupport.newProvider(1);
+        token = provider.generateToken(1L, "benchUser", "ROLE_USER");
+
+        tokens = new String[TOKEN_COUNT];
+        for(int i = 0; i < TOKEN_COUNT; i++) {
+            tokens[i] = provider.generateToken((long) i, "benchUser" + i, "ROLE_USER");
+        }
+    }
+
+
+    @Benchmark
+    public String generate() {
+        return provider.generateToken(1L, "benchUser", "ROLE_USER");
+    }
+
+
+    @Benchmark
+    public boolean validateCached() {
+        return provider.validateToken(token);
+    }
+
+
+    @Benchmark
+    public boolean validateUncached() {
+        next = (next + 1) & (TOKEN_COUNT - 1);
+        return uncachedProvider.validateToken(tokens[next]);
+    }
+}
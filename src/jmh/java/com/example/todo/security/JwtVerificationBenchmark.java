@@ -0,0 +1,60 @@
+package com.example.todo.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.security.Key;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// 요청 1번당 jwt 검증 비용 비교
+// threeParses : 예전 필터 방식 (validateToken, getUsername, getRole 마다 파서 생성 + 서명 검증)
+// singleParse : 한 번만 검증 (claims 캐시 miss)
+// cachedResolve: 검증된 claims 캐시 hit (같은 토큰으로 반복 요청)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtVerificationBenchmark {
+
+    private JwtTokenProvider provider;
+    private Key key;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        provider = JwtBenchmarkSupport.newProvider();
+        key = Keys.hmacShaKeyFor(JwtBenchmarkSupport.SECRET.getBytes());
+        token = provider.generateToken(1L, "benchUser", "ROLE_USER");
+    }
+
+
+    @Benchmark
+    public void threeParses(Blackhole blackhole) {
+        for(int i = 0; i < 3; i++) {
+            blackhole.consume(Jwts.parserBuilder()
+                    .setSigningKey(key)
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody());
+        }
+    }
+
+
+    @Benchmark
+    public Claims singleParse() {
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+
+    @Benchmark
+    public Optional<JwtClaims> cachedResolve() {
+        return provider.resolve(token);
+    }
+}
@@ -3,8 +3,10 @@ package com.example.todo;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableCaching // 캐시 기능 활성화
+@EnableScheduling // 주기 작업 (@Scheduled) 활성화
 @SpringBootApplication
 public class TodoApplication {
 
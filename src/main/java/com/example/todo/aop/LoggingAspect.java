@@ -1,86 +1,137 @@
 package com.example.todo.aop;
 
 
+import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.UUID;
-
-import org.aspectj.lang.JoinPoint;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.*;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+// 컨트롤러 요청 추적
+// 모든 요청: 엔드포인트별 처리 시간 지표 (micrometer timer)
+// 샘플링된 요청만: 매개변수 / 결과까지 로그 (요청 시작 시점에 결정 => head-based sampling)
+// 실패 / 느린 요청: 샘플링과 상관없이 항상 로그 (매개변수 / 결과는 빼고)
 @Slf4j // log 객체를 자동으로 만들어줌
 @Aspect // aop 클래스
 @Component
+@RequiredArgsConstructor
 public class LoggingAspect {
 
+    private final MeterRegistry meterRegistry;
+
+    // 매개변수 / 결과까지 로그를 남길 요청 비율 (0.0 ~ 1.0)
+    @Value("${request-logging.sample-rate:0.01}")
+    private double sampleRate = 0.01;
+
+    // 이 시간보다 오래 걸린 요청은 샘플링 안 됐어도 로그
+    @Value("${request-logging.slow-threshold-ms:1000}")
+    private long slowThresholdMs = 1000;
+
+    // 로그에 남길 매개변수 / 결과 최대 길이 (큰 목록 조회 시 로그가 너무 커지지 않게)
+    @Value("${request-logging.max-payload-length:1000}")
+    private int maxPayloadLength = 1000;
+
+    // 메서드별 이름 / timer는 처음 한 번만 만들어서 재사용
+    private final ConcurrentMap<Method, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+
     // aop를 어디에 적용할지 매번 적지 않기 위해
     // 따로 정의해놓는 것. 별칭용
     // 모든 메서드 실행 전에 적용
     @Pointcut("execution(* com.example.todo.controller..*(..))")
     private void controllerPointcut(){}
-    
-    // 요청별 시작시간 저장 (응답 시간 계산용)
-    private final ThreadLocal<Long> startTime = new ThreadLocal<>();
 
 
 
-    @Before("controllerPointcut()")
-    public void logBeforeMethod(JoinPoint joinpoint) {
+    // 요청 시작 ~ 끝을 메서드 하나로 감싸서 처리
+    // 시작 시간을 지역 변수로 들고 있어서 ThreadLocal이 필요 없음
+    @Around("controllerPointcut()")
+    public Object logAround(ProceedingJoinPoint joinpoint) throws Throwable {
+        Endpoint endpoint = endpoints.computeIfAbsent(
+                ((MethodSignature) joinpoint.getSignature()).getMethod(), this::createEndpoint);
 
-        // 흐름 추적을 용이하게 하기 위해 request id 생성
-        String requestId = UUID.randomUUID().toString().substring(0,8);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // 흐름 추적용 request id. UUID(SecureRandom)보다 훨씬 가벼움
+        String requestId = Long.toHexString(random.nextLong());
         // MDC = 로그용 개인 메모장. 한 요청동안 유지됨
         MDC.put("requestId", requestId);
 
-        // 요청 시작 시간 저장
-        startTime.set(System.currentTimeMillis());
-
-        // 실행될 클래스 + 메서드 이름
-        String methodName = joinpoint.getSignature().toShortString();
-        // 매개변수
-        String args = Arrays.toString(joinpoint.getArgs());
-
-        // 로그 찍기
-        log.info("🚀 [{}] 요청 시작 : {} | 매개변수 : {} ",requestId, methodName, args);
+        boolean sampled = random.nextDouble() < sampleRate;
+        if(sampled) {
+            log.info("🚀 [{}] 요청 시작 : {} | 매개변수 : {} ", requestId, endpoint.name,
+                    abbreviate(Arrays.toString(joinpoint.getArgs())));
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            Object result = joinpoint.proceed();
+
+            long time = System.nanoTime() - startTime;
+            endpoint.success.record(time, TimeUnit.NANOSECONDS);
+
+            if(sampled) {
+                log.info("✅ [{}] 요청 성공 : {} | time = {}ms | 결과 : {} ", requestId, endpoint.name,
+                        TimeUnit.NANOSECONDS.toMillis(time), abbreviate(String.valueOf(result)));
+            } else if(time >= TimeUnit.MILLISECONDS.toNanos(slowThresholdMs)) {
+                log.warn("🐢 [{}] 느린 요청 : {} | time = {}ms", requestId, endpoint.name, TimeUnit.NANOSECONDS.toMillis(time));
+            }
+            return result;
+
+        } catch (Throwable ex) {
+
+            // 예외 로그는 항상 남김
+            long time = System.nanoTime() - startTime;
+            endpoint.error.record(time, TimeUnit.NANOSECONDS);
+
+            log.error("❌ [{}] 요청 실패 : {} | time = {}ms | 예외 : {} ", requestId, endpoint.name,
+                    TimeUnit.NANOSECONDS.toMillis(time), ex.getMessage());
+            throw ex;
+
+        } finally {
+            // 다른 요청에서 스레드 재사용 시, 기존 값이 튀어나오지 않게 값을 비워주기 위함
+            MDC.remove("requestId");
+        }
     }
 
 
 
-    // 성공 로그
-    // returning에 있는 string과 파라미터의 변수 이름이 같아야 함 => 주입
-    @AfterReturning(pointcut="controllerPointcut()",
-            returning = "result")
-    public void logAfterMethod(JoinPoint joinpoint, Object result) {
-        String methodName = joinpoint.getSignature().toShortString();
-
-        long time = System.currentTimeMillis() - startTime.get();
-        // MDC에서 request id 가져오기
-        String requestId = MDC.get("requestId");
-
-        log.info("✅ [{}] 요청 성공 : {} | time = {}ms | 결과 : {} ", requestId, methodName, time, result);
-
-        // 다른 요청에서 스레드 재사용 시, 기존 값이 튀어나오지 않게 값을 비워주기 위함
-        startTime.remove();
-        MDC.clear();
+    private Endpoint createEndpoint(Method method) {
+        // 실행될 클래스 + 메서드 이름
+        String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        return new Endpoint(name, timer(name, "success"), timer(name, "error"));
     }
 
+    // 백분위(p95, p99) 계산이 가능하도록 히스토그램까지 내보냄
+    private Timer timer(String endpoint, String outcome) {
+        return Timer.builder("todo.controller.requests")
+                .description("컨트롤러 메서드 처리 시간")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 
+    private String abbreviate(String value) {
+        if(value.length() <= maxPayloadLength) {
+            return value;
+        }
+        return value.substring(0, maxPayloadLength) + "...(" + value.length() + " chars)";
+    }
 
-    // 예외 로그
-    @AfterThrowing(pointcut="controllerPointcut()",
-            throwing = "ex")
-    public void logAfterException(JoinPoint joinpoint, Throwable ex) {
-        String methodName = joinpoint.getSignature().toShortString();
-
-        long time = System.currentTimeMillis() - startTime.get();
-        String requestId = MDC.get("requestId");
-
-        log.error("❌ [{}] 요청 실패 : {} | time = {}ms | 예외 : {} ", requestId, methodName, time, ex.getMessage());
 
-        startTime.remove();
-        MDC.clear();
+    private record Endpoint(String name, Timer success, Timer error) {
     }
 }
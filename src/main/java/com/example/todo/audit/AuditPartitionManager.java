@@ -0,0 +1,366 @@
+package com.example.todo.audit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+// 감사 로그(audit_log) 월별 파티션 관리 (postgres)
+// - 이번 달 + premake-months 만큼 앞으로 쓸 파티션을 미리 만듦 (없으면 default 파티션으로 들어감)
+//   default 파티션에 들어간 달이 있으면 그 달 파티션을 만들고 행을 옮김 (그래야 아카이브 대상이 됨)
+// - retention-months보다 오래된 파티션은 gzip jsonl 파일로 내보낸 뒤 분리(detach) + 삭제
+//   => 오래된 행을 delete 하지 않아서 vacuum / 인덱스 비용이 안 쌓임
+// audit_log가 파티션 테이블로 바뀐 뒤에만 동작 (README의 마이그레이션 참고)
+// 서버가 여러 대여도 advisory lock으로 한 서버만 실행 (아카이브 파일은 실행한 서버의 디스크에 남음)
+@Slf4j
+@Component
+@Profile("!h2")
+@RequiredArgsConstructor
+public class AuditPartitionManager {
+
+    private static final String TABLE = "audit_log";
+    private static final String DEFAULT_PARTITION = TABLE + "_default";
+    // audit_log_p2026_10 => 2026년 10월
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final Pattern PARTITION = Pattern.compile(TABLE + "_p(\\d{4})_(\\d{2})");
+    // 파티션 작업끼리만 겹치지 않게 하는 advisory lock 번호 (임의의 고정값)
+    private static final long LOCK_KEY = 0x617564697420L;
+
+    private static final String IS_PARTITIONED =
+            "SELECT count(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid"
+                    + " WHERE c.relname = '" + TABLE + "' AND pg_table_is_visible(c.oid)";
+
+    private static final String LIST_PARTITIONS =
+            "SELECT c.relname FROM pg_inherits i"
+                    + " JOIN pg_class c ON c.oid = i.inhrelid"
+                    + " JOIN pg_class p ON p.oid = i.inhparent"
+                    + " WHERE p.relname = '" + TABLE + "' AND pg_table_is_visible(p.oid)"
+                    + " ORDER BY c.relname";
+
+    // default 파티션에 들어가 있던 달 (created_at 기준 월 첫날)
+    private static final String DEFAULT_MONTHS =
+            "SELECT DISTINCT date_trunc('month', created_at)::date FROM " + DEFAULT_PARTITION;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    // 이번 달 이후로 미리 만들어둘 파티션 수
+    @Value("${audit.partition.premake-months:2}")
+    private int premakeMonths;
+
+    // 이 개월 수보다 오래된 파티션은 아카이브 후 삭제 (이번 달 포함 X)
+    @Value("${audit.retention-months:6}")
+    private int retentionMonths;
+
+    @Value("${audit.archive.dir:archive/audit}")
+    private Path archiveDir;
+
+    // 아카이브할 때 DB에서 한 번에 가져올 행 수 (파티션 전체를 메모리에 올리지 않음)
+    @Value("${audit.archive.fetch-size:1000}")
+    private int fetchSize;
+
+    private Counter archivedRows;
+    private Counter archivedBytes;
+    private Counter archivedPartitions;
+    private Counter movedFromDefault;
+
+
+
+    @PostConstruct
+    public void registerMetrics() {
+        // 처리량 = rate(audit_archive_rows_total), rate(audit_archive_bytes_total)
+        archivedRows = Counter.builder("audit.archive.rows")
+                .description("아카이브한 감사 로그 행 수")
+                .register(meterRegistry);
+        archivedBytes = Counter.builder("audit.archive.bytes")
+                .description("아카이브 파일에 쓴 바이트 (압축 후)")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        archivedPartitions = Counter.builder("audit.archive.partitions")
+                .description("아카이브 후 삭제한 파티션 수")
+                .register(meterRegistry);
+        // 0이 아니면 파티션 생성이 밀렸던 것 (장애, 시계 오차 등) => 알림 대상
+        movedFromDefault = Counter.builder("audit.partition.default.moved")
+                .description("default 파티션에서 월 파티션으로 옮긴 행 수")
+                .register(meterRegistry);
+    }
+
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        maintain();
+    }
+
+
+    @Scheduled(initialDelayString = "${audit.partition.interval-ms:3600000}",
+            fixedDelayString = "${audit.partition.interval-ms:3600000}")
+    public void maintain() {
+        try {
+            if(!isPartitioned()) {
+                log.debug("{}가 파티션 테이블이 아니라 파티션 관리를 건너뜀", TABLE);
+                return;
+            }
+            createPartitions();
+            archiveExpired();
+        } catch(Exception e) {
+            // 다음 주기에 다시 시도
+            log.error("감사 로그 파티션 관리 실패", e);
+        }
+    }
+
+
+
+    private boolean isPartitioned() {
+        Long count = jdbcTemplate.queryForObject(IS_PARTITIONED, Long.class);
+        return count != null && count > 0;
+    }
+
+
+    // 이번 달 ~ premakeMonths 뒤까지 + default 파티션에 행이 있는 달의 파티션 생성
+    // 달마다 따로 트랜잭션 => 한 달이 실패해도 나머지 달은 만들어짐
+    private void createPartitions() {
+        Set<YearMonth> months = new TreeSet<>();
+        YearMonth now = YearMonth.now();
+        for(int i = 0; i <= premakeMonths; i++) {
+            months.add(now.plusMonths(i));
+        }
+        if(hasDefaultPartition()) {
+            for(LocalDate month : jdbcTemplate.queryForList(DEFAULT_MONTHS, LocalDate.class)) {
+                months.add(YearMonth.from(month));
+            }
+        }
+
+        for(YearMonth month : months) {
+            try {
+                createPartition(month);
+            } catch(Exception e) {
+                log.error("감사 로그 파티션 생성 실패: {}", partitionName(month), e);
+            }
+        }
+    }
+
+
+    // default 파티션에 그 달 행이 있으면 바로 만들 수 없어서 (postgres가 거부)
+    // default를 잠깐 떼고 -> 월 파티션 생성 -> 행을 옮기고 -> default를 다시 붙임. 한 트랜잭션이라 중간에 실패하면 그대로
+    private void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        String from = month.atDay(1).toString();
+        String to = month.plusMonths(1).atDay(1).toString();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if(!tryLock() || exists(partition)) {
+                return;
+            }
+
+            String create = "CREATE TABLE " + partition + " PARTITION OF " + TABLE
+                    + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')";
+            String inMonth = " WHERE created_at >= '" + from + "' AND created_at < '" + to + "'";
+
+            Long stranded = hasDefaultPartition()
+                    ? jdbcTemplate.queryForObject("SELECT count(*) FROM " + DEFAULT_PARTITION + inMonth, Long.class)
+                    : null;
+            if(stranded == null || stranded == 0) {
+                jdbcTemplate.execute(create);
+                return;
+            }
+
+            log.warn("default 파티션에 {} 행 {}건이 있어서 {}로 옮김", month, stranded, partition);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + DEFAULT_PARTITION);
+            jdbcTemplate.execute(create);
+            int moved = jdbcTemplate.update("INSERT INTO " + partition + " SELECT * FROM " + DEFAULT_PARTITION + inMonth);
+            jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + inMonth);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+            movedFromDefault.increment(moved);
+        });
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    private boolean hasDefaultPartition() {
+        return exists(DEFAULT_PARTITION);
+    }
+
+
+    // 보관 기간이 지난 월 파티션을 오래된 것부터 하나씩
+    private void archiveExpired() {
+        List<String> partitions = jdbcTemplate.queryForList(LIST_PARTITIONS, String.class);
+        for(String partition : expired(partitions, YearMonth.now(), retentionMonths)) {
+            archive(partition);
+        }
+    }
+
+    // 보관 기간(이번 달 제외 retentionMonths개월)보다 오래된 월 파티션만. default 파티션 등 이름이 다른 건 제외
+    static List<String> expired(List<String> partitions, YearMonth now, int retentionMonths) {
+        YearMonth oldestKept = now.minusMonths(retentionMonths);
+        return partitions.stream()
+                .filter(partition -> {
+                    YearMonth month = monthOf(partition);
+                    return month != null && month.isBefore(oldestKept);
+                })
+                .toList();
+    }
+
+
+    // 파일로 다 쓴 다음에 같은 트랜잭션에서 분리 + 삭제
+    // 중간에 실패하면 롤백되어 파티션은 그대로 남고, 다음 주기에 처음부터 다시 씀
+    private void archive(String partition) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "failure";
+        try {
+            Boolean done = transactionTemplate.execute(status -> {
+                if(!tryLock()) {
+                    return false;
+                }
+                long rows = export(partition);
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("감사 로그 파티션 아카이브 완료: {} ({}건)", partition, rows);
+                return true;
+            });
+            result = Boolean.TRUE.equals(done) ? "success" : "skipped";
+            if(Boolean.TRUE.equals(done)) {
+                archivedPartitions.increment();
+            }
+        } finally {
+            sample.stop(Timer.builder("audit.archive.duration")
+                    .description("파티션 1개 아카이브 시간 (파일 쓰기 + 삭제)")
+                    .tag("result", result)
+                    .register(meterRegistry));
+        }
+    }
+
+
+    // 파티션 내용을 한 줄에 json 하나씩 gzip 파일로
+    // 임시 파일에 다 쓴 뒤 이름을 바꿔서, 중간에 죽어도 반쯤 쓴 파일이 아카이브로 남지 않음
+    private long export(String partition) {
+        Path file = archiveDir.resolve(partition + ".jsonl.gz");
+        Path tmp = archiveDir.resolve(partition + ".jsonl.gz.tmp");
+
+        try {
+            Files.createDirectories(archiveDir);
+            long[] rows = {0};
+            try(CountingOutputStream counting = new CountingOutputStream(Files.newOutputStream(tmp));
+                GZIPOutputStream gzip = new GZIPOutputStream(counting, 64 * 1024);
+                JsonGenerator json = objectMapper.getFactory().createGenerator(gzip)) {
+
+                json.setRootValueSeparator(null); // 줄바꿈은 직접 씀
+                String sql = "SELECT id, event_type, user_id, data, created_at FROM " + partition + " ORDER BY id";
+
+                // 트랜잭션 안 + fetch size => postgres 드라이버가 커서로 나눠서 가져옴
+                jdbcTemplate.query(con -> {
+                    PreparedStatement statement = con.prepareStatement(sql);
+                    statement.setFetchSize(fetchSize);
+                    return statement;
+                }, rs -> {
+                    try {
+                        json.writeStartObject();
+                        json.writeNumberField("id", rs.getLong("id"));
+                        json.writeStringField("eventType", rs.getString("event_type"));
+                        long userId = rs.getLong("user_id");
+                        if(rs.wasNull()) {
+                            json.writeNullField("userId");
+                        } else {
+                            json.writeNumberField("userId", userId);
+                        }
+                        json.writeStringField("data", rs.getString("data"));
+                        Timestamp createdAt = rs.getTimestamp("created_at");
+                        json.writeStringField("createdAt", createdAt == null ? null : createdAt.toLocalDateTime().toString());
+                        json.writeEndObject();
+                        json.writeRaw('\n');
+                    } catch(IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    rows[0]++;
+                    archivedRows.increment();
+                });
+
+                json.flush();
+                gzip.finish();
+                archivedBytes.increment(counting.count);
+            }
+
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return rows[0];
+        } catch(IOException e) {
+            throw new UncheckedIOException("감사 로그 아카이브 파일 쓰기 실패: " + file, e);
+        }
+    }
+
+
+
+    // 트랜잭션이 끝나면 자동으로 풀리는 lock. 다른 서버가 잡고 있으면 false
+    private boolean tryLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY));
+    }
+
+    static String partitionName(YearMonth month) {
+        return TABLE + "_p" + LocalDate.of(month.getYear(), month.getMonth(), 1).format(SUFFIX);
+    }
+
+    static YearMonth monthOf(String partition) {
+        Matcher matcher = PARTITION.matcher(partition);
+        if(!matcher.matches()) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+
+
+
+    // gzip으로 압축된 뒤 실제로 파일에 쓰인 바이트 수
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.todo.cache;
+
+import com.example.todo.dto.TodoDto;
+import com.example.todo.dto.TodoPage;
+import com.example.todo.event.codec.BinaryTodoEventCodec;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// redis 캐시 값 직렬화 (cache.serializer.type=compact)
+// jdk 직렬화는 값마다 클래스 정보(패키지명, 필드명, serialVersionUID)가 들어가서 todo 목록이 커질수록 낭비가 큼
+// todo 목록 / 페이지는 이벤트와 같은 바이너리 형식(BinaryTodoEventCodec)으로, 그 외 값은 jdk 직렬화로 저장
+//
+// [magic 'C'][형식 버전][flags][타입] + 본문
+// flags: 본문이 gzip 압축됐는지. 본문이 compressThreshold 이상이고 압축해서 작아질 때만 압축
+// 타입 1 = List<TodoDto>  본문 = BinaryTodoEventCodec
+// 타입 2 = TodoPage       본문 = [page flags][nextCursor 8바이트(있으면)] + BinaryTodoEventCodec(items)
+// 타입 0 = 그 외          본문 = jdk 직렬화
+// magic으로 시작하지 않는 값은 이 형식 전에 jdk로 저장된 값으로 보고 그대로 읽음 (배포 후 기존 캐시도 사용 가능)
+// 타입별 본문을 바꿔야 하면 형식 버전을 올리고 read에 이전 버전 처리를 남겨둠
+public class CompactCacheSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = 'C';
+    static final byte VERSION = 1;
+
+    static final int GZIP = 1;
+
+    static final byte TYPE_JDK = 0;
+    static final byte TYPE_TODO_LIST = 1;
+    static final byte TYPE_TODO_PAGE = 2;
+
+    private static final int HEADER_SIZE = 4;
+
+    private static final int PAGE_HAS_NEXT = 1;
+    private static final int PAGE_HAS_CURSOR = 1 << 1;
+    private static final int PAGE_HAS_ITEMS = 1 << 2;
+
+    private final BinaryTodoEventCodec codec = new BinaryTodoEventCodec();
+    private final RedisSerializer<Object> fallback;
+    private final int compressThreshold;
+
+
+    // fallback: 목록 / 페이지가 아닌 값과 예전 값을 읽고 쓰는 jdk 직렬화
+    // compressThreshold: 본문이 이 바이트 이상이면 압축 시도 (0 이하면 압축 안 함)
+    public CompactCacheSerializer(RedisSerializer<Object> fallback, int compressThreshold) {
+        this.fallback = fallback;
+        this.compressThreshold = compressThreshold;
+    }
+
+
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte type;
+        byte[] body;
+        if(value instanceof TodoPage page && (page.getItems() == null || isTodoList(page.getItems()))) {
+            type = TYPE_TODO_PAGE;
+            body = writePage(page);
+        } else if(isTodoList(value)) {
+            type = TYPE_TODO_LIST;
+            body = codec.encode(todos(value));
+        } else {
+            type = TYPE_JDK;
+            body = fallback.serialize(value);
+        }
+
+        int flags = 0;
+        if(compressThreshold > 0 && body.length >= compressThreshold) {
+            byte[] compressed = gzip(body);
+            if(compressed.length < body.length) {
+                body = compressed;
+                flags |= GZIP;
+            }
+        }
+
+        byte[] out = new byte[HEADER_SIZE + body.length];
+        out[0] = MAGIC;
+        out[1] = VERSION;
+        out[2] = (byte) flags;
+        out[3] = type;
+        System.arraycopy(body, 0, out, HEADER_SIZE, body.length);
+        return out;
+    }
+
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if(bytes == null || bytes.length == 0) {
+            return null;
+        }
+        // 이 형식 전에 jdk로 저장된 값 (jdk 직렬화는 0xAC 0xED로 시작)
+        if(bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        if(bytes.length < HEADER_SIZE) {
+            throw new SerializationException("캐시 값이 중간에 잘림");
+        }
+
+        int version = bytes[1];
+        if(version < 1 || version > VERSION) {
+            throw new SerializationException("알 수 없는 캐시 형식 버전: " + version);
+        }
+        int flags = bytes[2];
+        byte type = bytes[3];
+
+        byte[] body = Arrays.copyOfRange(bytes, HEADER_SIZE, bytes.length);
+        if((flags & GZIP) != 0) {
+            body = gunzip(body);
+        }
+
+        try {
+            return switch(type) {
+                case TYPE_TODO_LIST -> codec.decode(body);
+                case TYPE_TODO_PAGE -> readPage(body);
+                case TYPE_JDK -> fallback.deserialize(body);
+                default -> throw new SerializationException("알 수 없는 캐시 값 타입: " + type);
+            };
+        } catch(IllegalArgumentException e) {
+            throw new SerializationException("캐시 값 읽기 실패", e);
+        }
+    }
+
+
+
+    private byte[] writePage(TodoPage page) {
+        int flags = (page.isHasNext() ? PAGE_HAS_NEXT : 0)
+                | (page.getNextCursor() != null ? PAGE_HAS_CURSOR : 0)
+                | (page.getItems() != null ? PAGE_HAS_ITEMS : 0);
+        byte[] items = page.getItems() != null ? codec.encode(page.getItems()) : new byte[0];
+
+        ByteBuffer out = ByteBuffer.allocate(1 + Long.BYTES + items.length);
+        out.put((byte) flags);
+        if(page.getNextCursor() != null) {
+            out.putLong(page.getNextCursor());
+        }
+        out.put(items);
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    private TodoPage readPage(byte[] body) {
+        ByteBuffer in = ByteBuffer.wrap(body);
+        int flags = in.get();
+        Long nextCursor = (flags & PAGE_HAS_CURSOR) != 0 ? in.getLong() : null;
+        List<TodoDto> items = (flags & PAGE_HAS_ITEMS) != 0
+                ? codec.decode(Arrays.copyOfRange(body, in.position(), body.length))
+                : null;
+        return new TodoPage(items, nextCursor, (flags & PAGE_HAS_NEXT) != 0);
+    }
+
+
+
+    // 요소가 전부 TodoDto인 리스트만 (null 요소가 있으면 jdk로)
+    private static boolean isTodoList(Object value) {
+        if(!(value instanceof List<?> list)) {
+            return false;
+        }
+        for(Object item : list) {
+            if(!(item instanceof TodoDto)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<TodoDto> todos(Object value) {
+        return (List<TodoDto>) value;
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2 + 32);
+        try(GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] body) {
+        try(InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        } catch(IOException e) {
+            throw new SerializationException("캐시 값 압축 해제 실패", e);
+        }
+    }
+}
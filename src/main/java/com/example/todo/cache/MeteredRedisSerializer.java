@@ -0,0 +1,54 @@
+package com.example.todo.cache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+// 캐시 값 직렬화 크기를 캐시별로 기록 (redis에 쓴 / redis에서 읽은 바이트)
+// cache.value.size{cache, operation=write|read}
+//  - sum: 쓴/읽은 총 바이트 (rate로 초당 네트워크 사용량)
+//  - sum / count: 값 하나의 평균 크기 (redis 메모리 추정)
+public class MeteredRedisSerializer implements RedisSerializer<Object> {
+
+    private final RedisSerializer<Object> delegate;
+    private final DistributionSummary written;
+    private final DistributionSummary read;
+
+
+    public MeteredRedisSerializer(RedisSerializer<Object> delegate, String cacheName, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.written = summary(meterRegistry, cacheName, "write");
+        this.read = summary(meterRegistry, cacheName, "read");
+    }
+
+
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] bytes = delegate.serialize(value);
+        if(bytes != null) {
+            written.record(bytes.length);
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if(bytes != null) {
+            read.record(bytes.length);
+        }
+        return delegate.deserialize(bytes);
+    }
+
+
+
+    private static DistributionSummary summary(MeterRegistry meterRegistry, String cacheName, String operation) {
+        return DistributionSummary.builder("cache.value.size")
+                .description("redis 캐시 값 크기 (직렬화 후)")
+                .baseUnit("bytes")
+                .tag("cache", cacheName)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
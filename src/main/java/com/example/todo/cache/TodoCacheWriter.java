@@ -0,0 +1,261 @@
+package com.example.todo.cache;
+
+import com.example.todo.dto.TodoDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+// todo 변경 시 캐시된 목록(getAllTodos:유저이름)을 어떻게 처리할지 담당
+// evict        : 목록 캐시를 지움 -> 다음 조회 때 DB에서 전체 다시 조회
+// write-through: 캐시된 목록에서 바뀐 todo 하나만 추가/교체/삭제
+//                다른 요청과 동시에 고쳐서 충돌이 나면 그때만 캐시를 지움
+// 페이지 캐시(todoPages)는 키에 유저별 세대 번호가 들어가서, 변경 시 세대만 올리면 이전 페이지들은 안 쓰임
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TodoCacheWriter {
+
+    private static final String CACHE_NAME = "todos";
+    private static final String KEY_PREFIX = "getAllTodos:";
+    private static final String WRITE_THROUGH = "write-through";
+    private static final String PAGE_GENERATION_PREFIX = "todos:gen:";
+    // 페이지 캐시 TTL보다 충분히 길게. 세대 키가 먼저 사라지면 예전 페이지가 다시 보일 수 있음
+    private static final Duration PAGE_GENERATION_TTL = Duration.ofDays(1);
+
+    private final CacheManager cacheManager;
+    private final RedisConnectionFactory connectionFactory;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${cache.todos.write-mode:evict}")
+    private String writeMode;
+
+
+
+    public void added(String username, TodoDto todo) {
+        added(username, List.of(todo));
+    }
+
+    public void added(String username, Collection<TodoDto> todos) {
+        afterCommit(username, list -> {
+            Set<Long> ids = idsOf(list);
+            for(TodoDto todo : todos) {
+                // 이미 있는 id면 캐시가 예상과 다른 상태 -> 충돌
+                if(!ids.add(todo.getId())) {
+                    return null;
+                }
+                list.add(todo);
+            }
+            return list;
+        });
+    }
+
+
+    public void replaced(String username, TodoDto todo) {
+        replaced(username, List.of(todo));
+    }
+
+    public void replaced(String username, Collection<TodoDto> todos) {
+        afterCommit(username, list -> {
+            for(TodoDto todo : todos) {
+                int index = indexOf(list, todo.getId());
+                if(index < 0) {
+                    return null;
+                }
+                list.set(index, todo);
+            }
+            return list;
+        });
+    }
+
+
+    public void removed(String username, Long id) {
+        removed(username, List.of(id));
+    }
+
+    public void removed(String username, Collection<Long> ids) {
+        afterCommit(username, list -> {
+            for(Long id : ids) {
+                int index = indexOf(list, id);
+                if(index < 0) {
+                    return null;
+                }
+                list.remove(index);
+            }
+            return list;
+        });
+    }
+
+
+
+    // 페이지 캐시 키에 들어가는 유저별 세대 번호
+    public long pageGeneration(String username) {
+        String generation = redisTemplate.opsForValue().get(PAGE_GENERATION_PREFIX + username);
+        return generation == null ? 0L : Long.parseLong(generation);
+    }
+
+
+
+    // 커밋 전에 캐시를 고치면 롤백된 데이터가 캐시에 남을 수 있어서 커밋 후에 실행
+    private void afterCommit(String username, UnaryOperator<List<TodoDto>> patch) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(username, patch);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(username, patch);
+            }
+        });
+    }
+
+
+    private void apply(String username, UnaryOperator<List<TodoDto>> patch) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        // patched: 캐시 목록을 직접 고침 / evicted: 캐시 삭제
+        String result = "evicted";
+        try {
+            if(writeCache(username, patch)) {
+                result = "patched";
+            }
+        } finally {
+            sample.stop(meterRegistry.timer("cache.todos.write", "mode", writeMode, "result", result));
+        }
+    }
+
+
+    // 반환값 true => 캐시된 목록을 직접 고침 (삭제 안 함)
+    private boolean writeCache(String username, UnaryOperator<List<TodoDto>> patch) {
+        // 페이지 캐시는 모드와 상관없이 세대를 올려서 무효화
+        String generationKey = PAGE_GENERATION_PREFIX + username;
+        redisTemplate.opsForValue().increment(generationKey);
+        redisTemplate.expire(generationKey, PAGE_GENERATION_TTL);
+
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if(cache == null) {
+            return false;
+        }
+        String key = KEY_PREFIX + username;
+
+        if(WRITE_THROUGH.equals(writeMode)) {
+            try {
+                // near cache를 쓰는 경우 실제 값은 L2(redis)에 있음
+                Cache target = (cache instanceof TwoLevelCache twoLevel) ? twoLevel.getRedisCache() : cache;
+
+                if(target instanceof RedisCache redisCache && patchInRedis(redisCache, key, patch)) {
+                    if(cache instanceof TwoLevelCache twoLevel) {
+                        twoLevel.evictNear(key); // 각 서버의 L1은 다음 조회 때 redis에서 새로 채움
+                    }
+                    return true;
+                }
+            } catch(Exception e) {
+                log.warn("캐시 write-through 실패, 캐시 삭제로 대체: {}", key, e);
+            }
+        }
+
+        cache.evict(key);
+        return false;
+    }
+
+
+
+    // redis WATCH로 낙관적 락을 걸고 목록을 고쳐서 다시 저장
+    // 반환값 false => 충돌 or 예상과 다른 캐시 상태 (호출한 쪽에서 캐시 삭제)
+    private boolean patchInRedis(RedisCache cache, String key, UnaryOperator<List<TodoDto>> patch) {
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+
+        // RedisCache가 실제로 쓰는 키와 같은 방식으로 만들기 (todos::getAllTodos:유저이름)
+        String cacheKey = config.usePrefix() ? config.getKeyPrefixFor(cache.getName()) + key : key;
+        byte[] rawKey = ByteUtils.getBytes(config.getKeySerializationPair().write(cacheKey));
+
+        try(RedisConnection connection = connectionFactory.getConnection()) {
+            connection.watch(rawKey);
+
+            byte[] raw = connection.stringCommands().get(rawKey);
+            if(raw == null) {
+                // 캐시된 목록이 없으면 고칠 것도 없음. 다음 조회 때 DB에서 채워짐
+                connection.unwatch();
+                return true;
+            }
+
+            List<TodoDto> patched = copyOf(config.getValueSerializationPair().read(ByteBuffer.wrap(raw)));
+            if(patched != null) {
+                patched = patch.apply(patched);
+            }
+            if(patched == null) {
+                connection.unwatch();
+                return false;
+            }
+
+            byte[] value = ByteUtils.getBytes(config.getValueSerializationPair().write(patched));
+            Duration ttl = config.getTtlFunction().getTimeToLive(key, patched);
+
+            connection.multi();
+            if(ttl != null && !ttl.isZero() && !ttl.isNegative()) {
+                connection.stringCommands().set(rawKey, value, Expiration.from(ttl), RedisStringCommands.SetOption.upsert());
+            } else {
+                connection.stringCommands().set(rawKey, value);
+            }
+
+            // watch 이후 다른 요청이 같은 키를 바꿨으면 exec 결과가 비어 있음
+            List<Object> result = connection.exec();
+            return result != null && !result.isEmpty();
+        }
+    }
+
+
+
+    private static List<TodoDto> copyOf(Object cached) {
+        if(!(cached instanceof List<?> list)) {
+            return null;
+        }
+
+        List<TodoDto> copy = new ArrayList<>(list.size() + 1);
+        for(Object item : list) {
+            if(!(item instanceof TodoDto todo)) {
+                return null;
+            }
+            copy.add(todo);
+        }
+        return copy;
+    }
+
+    private static Set<Long> idsOf(List<TodoDto> list) {
+        Set<Long> ids = new HashSet<>(list.size() * 2);
+        for(TodoDto todo : list) {
+            ids.add(todo.getId());
+        }
+        return ids;
+    }
+
+    private static int indexOf(List<TodoDto> list, Long id) {
+        for(int i = 0; i < list.size(); i++) {
+            if(Objects.equals(list.get(i).getId(), id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
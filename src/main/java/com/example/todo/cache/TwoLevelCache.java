@@ -0,0 +1,191 @@
+package com.example.todo.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+// L1(서버 메모리) + L2(redis) 2단계 캐시
+// 조회: L1 -> L2 -> (없으면) DB
+// 변경: L2 반영 + L1 삭제 + 다른 서버에 L1 삭제 요청 (redis pub/sub)
+public class TwoLevelCache implements Cache {
+
+    private final Cache redisCache; // L2
+    // 키는 문자열로 통일. null 값도 저장할 수 있게 ValueWrapper로 감싸서 저장
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> localCache; // L1
+    private final TwoLevelCacheManager cacheManager; // 무효화 메시지 발행용
+
+    // 레벨별 hit / miss 지표
+    private final Counter l1Hit;
+    private final Counter l1Miss;
+    private final Counter l2Hit;
+    private final Counter l2Miss;
+
+
+    public TwoLevelCache(Cache redisCache,
+                         com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> localCache,
+                         TwoLevelCacheManager cacheManager,
+                         MeterRegistry meterRegistry) {
+        this.redisCache = redisCache;
+        this.localCache = localCache;
+        this.cacheManager = cacheManager;
+
+        this.l1Hit = counter(meterRegistry, "l1", "hit");
+        this.l1Miss = counter(meterRegistry, "l1", "miss");
+        this.l2Hit = counter(meterRegistry, "l2", "hit");
+        this.l2Miss = counter(meterRegistry, "l2", "miss");
+    }
+
+
+    @Override
+    public String getName() {
+        return redisCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = String.valueOf(key);
+
+        ValueWrapper local = localCache.getIfPresent(localKey);
+        if(local != null) {
+            l1Hit.increment();
+            return local;
+        }
+        l1Miss.increment();
+
+        ValueWrapper remote = redisCache.get(key);
+        if(remote == null) {
+            l2Miss.increment();
+            return null;
+        }
+        l2Hit.increment();
+
+        // redis에서 가져온 값은 L1에 채워둠
+        localCache.put(localKey, new SimpleValueWrapper(remote.get()));
+        return remote;
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = (wrapper != null ? wrapper.get() : null);
+
+        if(value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if(wrapper != null) {
+            return (T) wrapper.get();
+        }
+
+        // L2가 동기화된 로딩을 담당
+        T value = redisCache.get(key, valueLoader);
+        localCache.put(String.valueOf(key), new SimpleValueWrapper(value));
+        return value;
+    }
+
+
+
+    @Override
+    public void put(Object key, Object value) {
+        redisCache.put(key, value);
+        localCache.put(String.valueOf(key), new SimpleValueWrapper(value));
+        // 다른 서버의 L1에는 예전 값이 남아 있을 수 있으니 지우게 함
+        cacheManager.publishEvict(getName(), key);
+    }
+
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = redisCache.putIfAbsent(key, value);
+        localCache.invalidate(String.valueOf(key));
+        cacheManager.publishEvict(getName(), key);
+        return existing;
+    }
+
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        evictNear(key);
+    }
+
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = redisCache.evictIfPresent(key);
+        evictNear(key);
+        return evicted;
+    }
+
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        localCache.invalidateAll();
+        cacheManager.publishClear(getName());
+    }
+
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = redisCache.invalidate();
+        localCache.invalidateAll();
+        cacheManager.publishClear(getName());
+        return invalidated;
+    }
+
+
+
+    // L2는 그대로 두고 모든 서버의 L1만 지우기
+    // redis 값을 직접 고쳤을 때 사용
+    public void evictNear(Object key) {
+        localCache.invalidate(String.valueOf(key));
+        cacheManager.publishEvict(getName(), key);
+    }
+
+
+    // L2 캐시 꺼내기
+    public Cache getRedisCache() {
+        return redisCache;
+    }
+
+
+    // 다른 서버에서 무효화 메시지를 받았을 때 (자기 L1만 지움)
+    void evictLocal(String key) {
+        localCache.invalidate(key);
+    }
+
+    void clearLocal() {
+        localCache.invalidateAll();
+    }
+
+
+
+    private Counter counter(MeterRegistry meterRegistry, String level, String result) {
+        return Counter.builder("cache.near.gets")
+                .description("2단계 캐시 레벨별 조회 결과")
+                .tag("cache", redisCache.getName())
+                .tag("level", level)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.todo.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// redis 캐시 매니저를 감싸서 TwoLevelCache를 만들어주는 매니저
+// 다른 서버로부터 무효화 메시지도 받음 (redis pub/sub)
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    // 메시지 형식 => 종류|보낸서버|캐시이름|키
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+
+    private final CacheManager redisCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String channel;
+    private final long maxWeight;
+    private final Duration ttl;
+
+    // 자기가 보낸 메시지는 무시하기 위한 서버 구분값
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+
+    public TwoLevelCacheManager(CacheManager redisCacheManager,
+                                StringRedisTemplate redisTemplate,
+                                MeterRegistry meterRegistry,
+                                String channel,
+                                long maxWeight,
+                                Duration ttl) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.channel = channel;
+        this.maxWeight = maxWeight;
+        this.ttl = ttl;
+    }
+
+
+    @Override
+    public Cache getCache(String name) {
+        // 없는 캐시면 null이 반환되고 map에도 안 들어감
+        return caches.computeIfAbsent(name, cacheName -> {
+            Cache redisCache = redisCacheManager.getCache(cacheName);
+            return redisCache == null ? null : new TwoLevelCache(redisCache, buildLocalCache(), this, meterRegistry);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+
+
+    void publishEvict(String cacheName, Object key) {
+        redisTemplate.convertAndSend(channel, EVICT + "|" + nodeId + "|" + cacheName + "|" + key);
+    }
+
+    void publishClear(String cacheName) {
+        redisTemplate.convertAndSend(channel, CLEAR + "|" + nodeId + "|" + cacheName);
+    }
+
+
+
+    // 다른 서버에서 보낸 무효화 메시지 처리
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        // 키에 | 가 들어가도 마지막 칸에 그대로 남도록 4칸까지만 자름
+        String[] parts = body.split("\\|", 4);
+
+        if(parts.length < 3 || nodeId.equals(parts[1])) {
+            return;
+        }
+
+        TwoLevelCache cache = caches.get(parts[2]);
+        if(cache == null) {
+            return; // 이 서버에선 아직 안 쓴 캐시
+        }
+
+        if(CLEAR.equals(parts[0])) {
+            cache.clearLocal();
+        } else if(EVICT.equals(parts[0]) && parts.length == 4) {
+            cache.evictLocal(parts[3]);
+        } else {
+            log.warn("알 수 없는 캐시 무효화 메시지: {}", body);
+        }
+    }
+
+
+
+    // 크기 제한이 있는 로컬 캐시
+    // 리스트는 원소 개수만큼 무게를 매겨서, 큰 목록 몇 개가 메모리를 다 차지하지 않게 함
+    private com.github.benmanes.caffeine.cache.Cache<String, Cache.ValueWrapper> buildLocalCache() {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String key, Cache.ValueWrapper value) -> weigh(value.get()))
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    private static int weigh(Object value) {
+        if(value instanceof Collection<?> collection) {
+            return collection.size() + 1;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.todo.config;
+
+import com.example.todo.cache.CompactCacheSerializer;
+import com.example.todo.cache.MeteredRedisSerializer;
+import com.example.todo.cache.TwoLevelCache;
+import com.example.todo.cache.TwoLevelCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.actuate.metrics.cache.RedisCacheMetrics;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+
+// 캐시 매니저 설정
+// 기본은 redis 캐시만 사용하고, near cache를 켜면 앞단에 로컬(L1) 캐시를 하나 더 둔다
+@Configuration
+public class CacheConfig {
+
+    // 페이지 캐시 유지 시간. 변경 시 세대가 바뀌어 안 쓰이게 된 페이지도 이 시간 뒤에 정리됨
+    @Value("${cache.todo-pages.ttl:10m}")
+    private Duration todoPagesTtl;
+
+    @Value("${cache.near.enabled:false}")
+    private boolean nearCacheEnabled;
+
+    // 로컬 캐시 최대 크기 (대략 캐시된 todo 개수 기준)
+    @Value("${cache.near.max-weight:100000}")
+    private long nearCacheMaxWeight;
+
+    // 무효화 메시지를 놓쳤을 때를 대비한 로컬 캐시 최대 유지 시간
+    @Value("${cache.near.ttl:30s}")
+    private Duration nearCacheTtl;
+
+    // 캐시 무효화를 다른 서버에 알리는 redis 채널
+    @Value("${cache.near.channel:cache:evict}")
+    private String nearCacheChannel;
+
+    // 캐시 값 직렬화 방식. jdk: spring boot 기본 / compact: todo 목록을 작은 바이너리로 (CompactCacheSerializer)
+    @Value("${cache.serializer.type:compact}")
+    private String serializerType;
+
+    // compact 모드에서 값이 이 바이트 이상이면 gzip 압축 (0이면 압축 안 함)
+    @Value("${cache.serializer.compress-threshold:1024}")
+    private int compressThreshold;
+
+
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     StringRedisTemplate stringRedisTemplate,
+                                     RedisMessageListenerContainer listenerContainer,
+                                     MeterRegistry meterRegistry) {
+
+        // 키 등 나머지는 spring boot 기본 설정과 동일 (devtools 재시작 클래스로더 대응)
+        // 값 직렬화는 캐시별로 따로 만들어서 캐시별 크기 지표를 남김 (미리 설정 안 한 캐시는 cache=default)
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig(getClass().getClassLoader());
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(withValueSerializer(defaults, "default", meterRegistry))
+                // 시작 시점에 있는 캐시만 actuator 지표에 등록되므로 미리 만들어둠
+                .withCacheConfiguration("todos", withValueSerializer(defaults, "todos", meterRegistry))
+                .withCacheConfiguration("todoPages",
+                        withValueSerializer(defaults, "todoPages", meterRegistry).entryTtl(todoPagesTtl))
+                // hit/miss/put/eviction 통계 수집 => cache_gets, cache_puts, cache_evictions 지표
+                .enableStatistics()
+                .build();
+
+        if(!nearCacheEnabled) {
+            return redisCacheManager;
+        }
+
+        // 빈으로 등록되지 않으니 초기화 직접 호출
+        redisCacheManager.afterPropertiesSet();
+
+        TwoLevelCacheManager twoLevelCacheManager = new TwoLevelCacheManager(redisCacheManager,
+                stringRedisTemplate, meterRegistry, nearCacheChannel, nearCacheMaxWeight, nearCacheTtl);
+
+        // 다른 서버에서 보낸 무효화 메시지 구독
+        listenerContainer.addMessageListener(twoLevelCacheManager, new ChannelTopic(nearCacheChannel));
+
+        return twoLevelCacheManager;
+    }
+
+
+
+    private RedisCacheConfiguration withValueSerializer(RedisCacheConfiguration config, String cacheName, MeterRegistry meterRegistry) {
+        RedisSerializer<Object> jdk = new JdkSerializationRedisSerializer(getClass().getClassLoader());
+        // compact 모드에서도 이전에 jdk로 저장된 값은 그대로 읽음
+        // (jdk로 되돌리면 compact로 저장된 값은 못 읽으니 그땐 캐시를 비워야 함)
+        RedisSerializer<Object> serializer = "jdk".equals(serializerType)
+                ? jdk
+                : new CompactCacheSerializer(jdk, compressThreshold);
+
+        return config.serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                new MeteredRedisSerializer(serializer, cacheName, meterRegistry)));
+    }
+
+
+
+    // near cache를 켠 경우에도 L2(redis) 캐시 통계를 같은 지표 이름으로 내보냄
+    // (L1 hit/miss는 TwoLevelCache가 cache.near.gets로 따로 기록)
+    @Bean
+    public CacheMeterBinderProvider<TwoLevelCache> twoLevelCacheMeterBinderProvider() {
+        return (cache, tags) -> new RedisCacheMetrics((RedisCache) cache.getRedisCache(), tags);
+    }
+}
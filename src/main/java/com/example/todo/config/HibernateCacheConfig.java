@@ -0,0 +1,72 @@
+package com.example.todo.config;
+
+import com.example.todo.entity.User;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
+// hibernate 2차 캐시 설정 (서버 메모리, caffeine)
+// spring 캐시(redis)와는 별개. 지금은 User 엔티티만 캐시함
+// 서버마다 따로 있는 캐시라 다른 서버에서 바꾼 내용은 ttl이 지나야 반영됨
+@Configuration
+public class HibernateCacheConfig {
+
+    // hibernate가 쓰는 region 이름 => 엔티티 클래스 이름 / + ##NaturalId
+    private static final List<String> REGIONS = List.of(
+            User.class.getName(),
+            User.class.getName() + "##NaturalId");
+
+    // region별 최대 개수
+    @Value("${cache.user.max-size:10000}")
+    private long userCacheMaxSize;
+
+    // 다른 서버에서 바뀐 값을 늦게라도 반영하기 위한 최대 유지 시간
+    @Value("${cache.user.ttl:10m}")
+    private Duration userCacheTtl;
+
+
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(MeterRegistry meterRegistry) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("todo-hibernate"), getClass().getClassLoader());
+
+        // 크기 제한 없이 자동 생성되지 않도록 미리 만들어둠 (없는 region이면 시작 시 실패)
+        for(String region : REGIONS) {
+            CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+            config.setMaximumSize(OptionalLong.of(userCacheMaxSize));
+            config.setExpireAfterWrite(OptionalLong.of(userCacheTtl.toNanos()));
+            config.setStatisticsEnabled(true);
+
+            Cache<Object, Object> cache = cacheManager.createCache(region, config);
+            // cache_gets{cache=..., result=hit|miss} 등 spring 캐시와 같은 이름의 지표
+            JCacheMetrics.monitor(meterRegistry, cache, Tags.of("cacheManager", "hibernate"));
+        }
+        return cacheManager;
+    }
+
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateSecondLevelCache(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", true);
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+        };
+    }
+}
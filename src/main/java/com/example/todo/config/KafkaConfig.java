@@ -0,0 +1,48 @@
+package com.example.todo.config;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+@Configuration
+public class KafkaConfig {
+
+    // 배치 리스너용 컨테이너 팩토리
+    // 한 번 poll 한 레코드들을 List로 한꺼번에 받고, 리스너가 끝나면 배치 단위로 offset 커밋
+    // 실패한 레코드는 그 자리에서 몇 번만 다시 시도하고 DLT로 보냄 (단건 모드의 재시도 토픽은 배치 리스너에선 못 씀)
+    // => 파티션이 막히는 시간은 retry.batch-attempts * retry.delay-ms 정도로 제한됨
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            @Value("${spring.kafka.topic.todo-created}") String topic,
+            @Value("${spring.kafka.retry.delay-ms:1000}") long retryDelayMs,
+            @Value("${spring.kafka.retry.batch-attempts:2}") long batchAttempts) {
+
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        // application.yaml의 spring.kafka 설정 그대로 적용
+        configurer.configure(factory, consumerFactory);
+
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+
+        // 단건 모드(@RetryableTopic)와 같은 DLT. 파티션은 지정 안 함 (key = userId로 정해짐)
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, e) -> new TopicPartition(topic + "-dlt", -1));
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, new FixedBackOff(retryDelayMs, batchAttempts));
+        // 형식이 잘못된 메시지는 다시 해도 안 되니 바로 DLT로
+        errorHandler.addNotRetryableExceptions(IllegalArgumentException.class);
+        factory.setCommonErrorHandler(errorHandler);
+        return factory;
+    }
+}
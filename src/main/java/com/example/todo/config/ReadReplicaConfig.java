@@ -0,0 +1,94 @@
+package com.example.todo.config;
+
+import com.example.todo.datasource.ReadReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// read replica 설정 (datasource.replica.enabled=true 일 때만)
+// 이 설정이 없으면 spring boot 기본 데이터소스 하나만 사용
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    // replica jdbc url 목록 (쉼표로 구분)
+    @Value("${datasource.replica.urls}")
+    private List<String> replicaUrls;
+
+    // 비워두면 primary와 같은 계정
+    @Value("${datasource.replica.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${datasource.replica.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${datasource.replica.pool-size:10}")
+    private int replicaPoolSize;
+
+    // 쓰기 후 이 시간 동안은 같은 유저의 조회도 primary로. 0이면 끔 (max-lag보다 짧으면 max-lag로 늘어남)
+    @Value("${datasource.replica.read-your-writes-window:5s}")
+    private Duration readYourWritesWindow;
+
+    // 복제 지연이 이보다 크면 replica 제외. 0이면 확인 안 함 (postgres 전용 쿼리라 h2에선 0)
+    @Value("${datasource.replica.max-lag:0s}")
+    private Duration maxLag;
+
+    // 쓰기 기록을 redis로 다른 서버와 공유 (끄면 쓰기를 처리한 서버에서만 적용)
+    @Value("${datasource.replica.shared-read-your-writes:true}")
+    private boolean sharedReadYourWrites;
+
+
+
+    @Bean
+    public ReadReplicaRoutingDataSource readReplicaRoutingDataSource(DataSourceProperties properties,
+                                                                     StringRedisTemplate redisTemplate,
+                                                                     MeterRegistry meterRegistry) {
+        // primary는 spring.datasource.* 설정 그대로
+        HikariDataSource primary = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+        primary.setMetricRegistry(meterRegistry); // hikaricp_* 지표 (pool 태그로 구분)
+
+        List<DataSource> replicas = new ArrayList<>(replicaUrls.size());
+        for(int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(replicaUrls.get(i).trim())
+                    .username(replicaUsername)
+                    .password(replicaPassword)
+                    .build();
+            replica.setPoolName("replica-" + i);
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            replica.setMetricRegistry(meterRegistry);
+            replicas.add(replica);
+        }
+
+        return new ReadReplicaRoutingDataSource(primary, replicas, readYourWritesWindow, maxLag,
+                sharedReadYourWrites ? redisTemplate : null, meterRegistry);
+    }
+
+
+    // jpa 등 앱 전체가 쓰는 데이터소스
+    // 트랜잭션 시작 때가 아니라 첫 쿼리 때 연결을 가져와서, 그때는 readOnly 여부를 보고 고를 수 있음
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -1,6 +1,11 @@
 package com.example.todo.controller;
 
+import com.example.todo.dto.TodoBatchRequest;
+import com.example.todo.dto.TodoChanges;
 import com.example.todo.dto.TodoDto;
+import com.example.todo.dto.TodoIdsRequest;
+import com.example.todo.dto.TodoPage;
+import com.example.todo.dto.TodoSearchPage;
 import com.example.todo.response.ApiResponse;
 import com.example.todo.service.TodoService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -31,6 +36,40 @@ public class TodoController {
 
 
 
+    // size 파라미터가 있으면 페이지 단위로 조회 (keyset)
+    // cursor: 이전 페이지의 nextCursor / completed: 완료 여부 필터
+    @GetMapping(params = "size")
+    public ResponseEntity<ApiResponse<TodoPage>> getTodoPage(@RequestParam(required = false) Long cursor,
+                                                             @RequestParam int size,
+                                                             @RequestParam(required = false) Boolean completed) {
+        // 페이지 크기는 1 ~ MAX_PAGE_SIZE 사이로 맞춤
+        int pageSize = Math.max(1, Math.min(size, TodoService.MAX_PAGE_SIZE));
+        return ResponseEntity.ok(ApiResponse.ok(todoService.getTodoPage(cursor, pageSize, completed)));
+    }
+
+
+
+    // delta sync: since(이전 응답의 version) 이후 바뀐 todo만 조회
+    // since가 없거나 0이면 전체 목록 (reset = true)
+    @GetMapping("/changes")
+    public ResponseEntity<ApiResponse<TodoChanges>> getChanges(@RequestParam(defaultValue = "0") long since) {
+        return ResponseEntity.ok(ApiResponse.ok(todoService.getChanges(since)));
+    }
+
+
+
+    // 제목/설명 검색. q의 각 단어를 모두 포함하는 todo (단어 앞부분만 입력해도 됨)
+    // page는 0부터. 관련도 높은 순
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<TodoSearchPage>> searchTodos(@RequestParam String q,
+                                                                   @RequestParam(defaultValue = "0") int page,
+                                                                   @RequestParam(defaultValue = "20") int size) {
+        int pageSize = Math.max(1, Math.min(size, TodoService.MAX_PAGE_SIZE));
+        return ResponseEntity.ok(ApiResponse.ok(todoService.searchTodos(q, Math.max(0, page), pageSize)));
+    }
+
+
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<TodoDto>> getTodoById(@PathVariable Long id) {
         // 응답 데이터와 상태 코드를 한 번에 담아보낼 수 있음
@@ -51,6 +90,36 @@ public class TodoController {
 
 
 
+    // 여러 todo를 한 번에 생성 (최대 500개)
+    @PostMapping("/batch")
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "201", description = "일괄 생성 성공")
+    public ResponseEntity<ApiResponse<List<TodoDto>>> createTodos(@Valid @RequestBody TodoBatchRequest request) {
+
+        List<TodoDto> created = todoService.createTodos(request.getTodos());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(HttpStatus.CREATED, "created", created));
+    }
+
+
+
+    // 여러 todo를 한 번에 완료 처리
+    @PostMapping("/batch/complete")
+    public ResponseEntity<ApiResponse<List<TodoDto>>> completeTodos(@Valid @RequestBody TodoIdsRequest request) {
+        return ResponseEntity.ok(ApiResponse.ok(todoService.completeTodos(request.getIds())));
+    }
+
+
+
+    // 여러 todo를 한 번에 삭제 (DELETE는 body를 못 받는 클라이언트가 있어서 POST 사용)
+    @PostMapping("/batch/delete")
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "204", description = "일괄 삭제 성공")
+    public ResponseEntity<Void> deleteTodos(@Valid @RequestBody TodoIdsRequest request) {
+        todoService.deleteTodos(request.getIds());
+        return ResponseEntity.noContent().build();
+    }
+
+
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<TodoDto>> updateTodo(@PathVariable Long id,
                                               // 실제 검증
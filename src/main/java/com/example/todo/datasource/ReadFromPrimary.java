@@ -0,0 +1,13 @@
+package com.example.todo.datasource;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// readOnly 트랜잭션이어도 replica가 아닌 primary에서 조회
+// 결과가 TTL 없는 캐시 등에 오래 남는 조회에 사용 (복제 지연된 결과가 캐시에 남지 않게)
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadFromPrimary {
+}
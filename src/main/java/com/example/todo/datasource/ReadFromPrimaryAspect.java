@@ -0,0 +1,19 @@
+package com.example.todo.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+// @ReadFromPrimary 메서드 안에서 가져오는 연결은 primary로
+// 연결은 첫 쿼리 때 가져오므로(LazyConnectionDataSourceProxy) 트랜잭션 시작과 순서 상관없음
+// replica를 안 쓰는 설정이면 아무 효과 없음
+@Aspect
+@Component
+public class ReadFromPrimaryAspect {
+
+    @Around("@annotation(com.example.todo.datasource.ReadFromPrimary)")
+    public Object readFromPrimary(ProceedingJoinPoint joinPoint) throws Throwable {
+        return ReadReplicaRoutingDataSource.onPrimary(joinPoint::proceed);
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.todo.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// readOnly 트랜잭션은 replica로, 나머지는 primary로 보내는 데이터소스
+// - replica가 여러 개면 돌아가면서 사용 (정상인 것만)
+// - 정상인 replica가 없으면 primary로 (주기적으로 상태 확인, 연결 실패 시 바로 제외)
+// - read-your-writes: 유저가 쓰기를 한 뒤 잠시 동안은 그 유저의 조회도 primary로 (복제 지연으로 방금 쓴 게 안 보이는 것 방지)
+//   쓰기 기록은 서버 메모리 + redis(rw:유저이름, TTL)에 남겨서 다른 서버로 간 요청에도 적용
+//   창은 maxLag보다 짧을 수 없음 (maxLag만큼 밀린 replica도 정상으로 보기 때문)
+// - @ReadFromPrimary / onPrimary 안의 조회는 항상 primary (캐시를 채우는 조회 등)
+// 트랜잭션 시작 시점엔 아직 readOnly 여부가 안 정해져 있어서 LazyConnectionDataSourceProxy로 감싸서 써야 함
+// (실제 쿼리를 보낼 때 연결을 가져옴)
+@Slf4j
+public class ReadReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+
+    // onPrimary 안인지 (중첩 가능)
+    private static final ThreadLocal<Integer> PRIMARY_PINNED = ThreadLocal.withInitial(() -> 0);
+
+    private static final String RECENT_WRITER_PREFIX = "rw:";
+
+    // 유저이름 -> 마지막 쓰기. 창이 지나면 알아서 사라짐. null이면 read-your-writes 끔
+    private final Cache<String, Boolean> recentWriters;
+    // 다른 서버와 공유하는 쓰기 기록. null이면 서버 메모리만
+    private final StringRedisTemplate redisTemplate;
+    // redis에 쓰기 기록을 남긴 유저. 이 시간(창의 절반) 동안은 쓰기마다 redis에 다시 쓰지 않음
+    private final Cache<String, Boolean> sharedMarks;
+    private final Duration sharedMarkTtl;
+
+    private final Counter primaryWrite;
+    private final Counter replicaRead;
+    private final Counter primaryRecentWrite;
+    private final Counter primaryFailover;
+    private final Counter primaryPinned;
+
+
+    public ReadReplicaRoutingDataSource(DataSource primary,
+                                        List<DataSource> replicas,
+                                        Duration readYourWritesWindow,
+                                        Duration maxLag,
+                                        MeterRegistry meterRegistry) {
+        this(primary, replicas, readYourWritesWindow, maxLag, null, meterRegistry);
+    }
+
+    public ReadReplicaRoutingDataSource(DataSource primary,
+                                        List<DataSource> replicas,
+                                        Duration readYourWritesWindow,
+                                        Duration maxLag,
+                                        StringRedisTemplate redisTemplate,
+                                        MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas.size());
+        for(int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + i, replicas.get(i)));
+        }
+        this.maxLag = maxLag;
+
+        boolean readYourWrites = readYourWritesWindow != null && !readYourWritesWindow.isZero();
+        Duration window = readYourWritesWindow;
+        if(readYourWrites && maxLag != null && window.compareTo(maxLag) < 0) {
+            log.warn("read-your-writes 창({})이 max-lag({})보다 짧아서 max-lag로 늘림", window, maxLag);
+            window = maxLag;
+        }
+
+        this.recentWriters = !readYourWrites
+                ? null
+                : Caffeine.newBuilder()
+                        .expireAfterWrite(window)
+                        .maximumSize(100_000)
+                        .build();
+
+        this.redisTemplate = readYourWrites ? redisTemplate : null;
+        this.sharedMarks = this.redisTemplate == null
+                ? null
+                : Caffeine.newBuilder()
+                        .expireAfterWrite(window.dividedBy(2))
+                        .maximumSize(100_000)
+                        .build();
+        // 다시 안 쓰는 동안(창의 절반)에도 마지막 쓰기부터 창만큼은 남아 있게
+        this.sharedMarkTtl = readYourWrites ? window.plus(window.dividedBy(2)) : null;
+
+        this.primaryWrite = counter(meterRegistry, "primary", "write");
+        this.replicaRead = counter(meterRegistry, "replica", "read");
+        this.primaryRecentWrite = counter(meterRegistry, "primary", "recent-write");
+        this.primaryFailover = counter(meterRegistry, "primary", "failover");
+        this.primaryPinned = counter(meterRegistry, "primary", "pinned");
+
+        for(Replica replica : this.replicas) {
+            meterRegistry.gauge("datasource.replica.healthy",
+                    Tags.of("replica", replica.name), replica,
+                    r -> r.healthy ? 1 : 0);
+        }
+    }
+
+
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(username, password);
+    }
+
+
+
+    // 이 안에서 가져오는 연결은 readOnly여도 primary로
+    public static <T> T onPrimary(PrimaryWork<T> work) throws Throwable {
+        PRIMARY_PINNED.set(PRIMARY_PINNED.get() + 1);
+        try {
+            return work.run();
+        } finally {
+            int depth = PRIMARY_PINNED.get() - 1;
+            if(depth == 0) {
+                PRIMARY_PINNED.remove();
+            } else {
+                PRIMARY_PINNED.set(depth);
+            }
+        }
+    }
+
+
+
+    private Connection route(String username, String password) throws SQLException {
+        if(!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // 트랜잭션 안의 쓰기 => 이 유저는 잠시 primary에서 읽게 함
+            if(recentWriters != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                String user = currentUser();
+                if(user != null) {
+                    markWriter(user);
+                }
+            }
+            primaryWrite.increment();
+            return connect(primary, username, password);
+        }
+
+        if(PRIMARY_PINNED.get() > 0) {
+            primaryPinned.increment();
+            return connect(primary, username, password);
+        }
+
+        if(recentWriters != null) {
+            String user = currentUser();
+            if(user != null && isRecentWriter(user)) {
+                primaryRecentWrite.increment();
+                return connect(primary, username, password);
+            }
+        }
+
+        // 정상인 replica를 돌아가면서. 연결 실패한 건 제외하고 다음 것으로
+        int size = replicas.size();
+        int start = size == 0 ? 0 : Math.floorMod(next.getAndIncrement(), size);
+        for(int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if(!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection connection = connect(replica.dataSource, username, password);
+                replicaRead.increment();
+                return connection;
+            } catch(SQLException e) {
+                replica.healthy = false;
+                log.warn("replica 연결 실패, 상태 확인 전까지 제외: {}", replica.name, e);
+            }
+        }
+
+        primaryFailover.increment();
+        return connect(primary, username, password);
+    }
+
+
+
+    private void markWriter(String user) {
+        recentWriters.put(user, Boolean.TRUE);
+        if(redisTemplate == null || sharedMarks.getIfPresent(user) != null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(RECENT_WRITER_PREFIX + user, "1", sharedMarkTtl);
+            sharedMarks.put(user, Boolean.TRUE);
+        } catch(Exception e) {
+            // 이 서버에서는 그대로 적용됨. 다른 서버는 다음 쓰기 때 다시 시도
+            log.debug("쓰기 기록 redis 저장 실패: {}", user, e);
+        }
+    }
+
+    private boolean isRecentWriter(String user) {
+        if(recentWriters.getIfPresent(user) != null) {
+            return true;
+        }
+        if(redisTemplate == null) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(RECENT_WRITER_PREFIX + user));
+        } catch(Exception e) {
+            // 확인이 안 되면 안전하게 primary로
+            log.debug("쓰기 기록 redis 조회 실패: {}", user, e);
+            return true;
+        }
+    }
+
+
+
+    // 주기적으로 replica 상태 확인 (빈으로 등록되면 실행됨)
+    // 연결이 안 되거나 복제 지연이 maxLag보다 크면 제외, 다시 괜찮아지면 복귀
+    @Scheduled(initialDelay = 0, fixedDelayString = "${datasource.replica.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        for(Replica replica : replicas) {
+            boolean healthy = isHealthy(replica);
+            if(healthy != replica.healthy) {
+                log.info("replica 상태 변경: {} -> {}", replica.name, healthy ? "정상" : "제외");
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+
+    private boolean isHealthy(Replica replica) {
+        try(Connection connection = replica.dataSource.getConnection()) {
+            if(!connection.isValid(1)) {
+                return false;
+            }
+            if(maxLag == null || maxLag.isZero()) {
+                return true;
+            }
+            // 마지막으로 반영된 트랜잭션 이후 지난 시간 (postgres streaming replication)
+            // 받은 WAL을 다 반영했으면 primary에 쓰기가 없었던 것이므로 지연 0
+            try(Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(
+                        "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0"
+                                + " else extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000 end")) {
+                if(!rs.next()) {
+                    return true;
+                }
+                long lagMillis = rs.getLong(1);
+                // null => replica가 아니거나 아직 반영한 게 없음
+                return rs.wasNull() || lagMillis <= maxLag.toMillis();
+            }
+        } catch(SQLException e) {
+            log.debug("replica 상태 확인 실패: {}", replica.name, e);
+            return false;
+        }
+    }
+
+
+
+    @Override
+    public void close() throws IOException {
+        close(primary);
+        for(Replica replica : replicas) {
+            close(replica.dataSource);
+        }
+    }
+
+    private static void close(DataSource dataSource) throws IOException {
+        if(dataSource instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+
+
+    private static Connection connect(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if(authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("datasource.routing")
+                .description("연결을 어느 DB로 보냈는지")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+
+
+    @FunctionalInterface
+    public interface PrimaryWork<T> {
+        T run() throws Throwable;
+    }
+
+
+
+    private static class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        // 처음엔 정상으로 보고, 상태 확인/연결 실패 시 갱신
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.todo.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// 여러 todo를 한 번에 생성하는 요청
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class TodoBatchRequest {
+
+    // 한 요청에 담을 수 있는 최대 todo 수
+    public static final int MAX_SIZE = 500;
+
+    // @Valid => 리스트 안의 todo 각각도 검증 (제목 비었는지 등)
+    @Valid
+    @NotEmpty(message = "생성할 todo가 없습니다.")
+    @Size(max = MAX_SIZE, message = "한 번에 최대 500개까지 생성할 수 있습니다.")
+    private List<TodoDto> todos;
+}
@@ -0,0 +1,30 @@
+package com.example.todo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// delta sync 응답 (since 이후 바뀐 것만)
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoChanges {
+
+    // 생성/수정된 todo (변경 번호 순)
+    private List<TodoDto> changed;
+
+    // 삭제된 todo id
+    private List<Long> deleted;
+
+    // 다음 요청 시 since로 넘길 값
+    private long version;
+
+    // true면 아직 남은 변경이 있음 -> version으로 바로 이어서 요청
+    private boolean hasMore;
+
+    // true면 changed가 전체 목록. 클라이언트는 로컬 목록을 통째로 교체
+    // (처음 동기화 or 삭제 기록이 정리될 만큼 오래 동기화 안 한 경우)
+    private boolean reset;
+}
@@ -17,6 +17,11 @@ import java.io.Serializable;
 @Builder
 public class TodoDto implements Serializable { // redis에 저장하기 위해
 
+    // 필드를 추가하기 전(version 필드 없던 때) 클래스에서 계산된 값 그대로 고정
+    // 없으면 필드가 바뀔 때마다 값이 달라져서, 배포 전에 redis에 jdk로 저장된 목록을 못 읽음 (InvalidClassException)
+    // 필드 추가는 괜찮음 (예전 값에 없는 필드는 null / 기본값으로 읽힘). 이 값은 바꾸지 말 것
+    private static final long serialVersionUID = -5522650527628095975L;
+
     //요청에서는 사용자가 보내도 엔티티에서 무시되고, 응답으로는 알려줘야 함
     // nullable
     @Schema(accessMode = Schema.AccessMode.READ_ONLY) // swagger 요청 body 에서 빠지게 함
@@ -37,6 +42,10 @@ public class TodoDto implements Serializable { // redis에 저장하기 위해
     @Schema(accessMode = Schema.AccessMode.READ_ONLY) // swagger 요청 body X
     private Long userId;
 
+    // 변경 번호 (delta sync용). 서버에서 채우는 응답용 필드
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+    private Long version;
+
 
 
     // Entity를 받아서 Dto로 바꾼 다음 반환하는 메서드
@@ -47,6 +56,7 @@ public class TodoDto implements Serializable { // redis에 저장하기 위해
                 .description(todo.getDescription())
                 .completed(todo.isCompleted())
                 .userId(todo.getUser().getId())
+                .version(todo.getVersion())
                 .build();
     }
 }
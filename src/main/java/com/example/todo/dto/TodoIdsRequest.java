@@ -0,0 +1,25 @@
+package com.example.todo.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// 여러 todo를 id로 한 번에 처리(완료/삭제)하는 요청
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class TodoIdsRequest {
+
+    public static final int MAX_SIZE = 500;
+
+    @NotEmpty(message = "대상 todo id가 없습니다.")
+    @Size(max = MAX_SIZE, message = "한 번에 최대 500개까지 처리할 수 있습니다.")
+    private List<@NotNull Long> ids;
+}
@@ -0,0 +1,23 @@
+package com.example.todo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+// keyset 페이지 응답. redis에 저장하기 위해 Serializable
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoPage implements Serializable {
+
+    private List<TodoDto> items;
+
+    // 다음 페이지 요청 시 cursor로 넘길 값 (이번 페이지 마지막 todo의 id)
+    // 다음 페이지가 없으면 null
+    private Long nextCursor;
+
+    private boolean hasNext;
+}
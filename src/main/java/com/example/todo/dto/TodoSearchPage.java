@@ -0,0 +1,22 @@
+package com.example.todo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// 검색 결과 페이지 (관련도 높은 순)
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoSearchPage {
+
+    private List<TodoDto> items;
+
+    private int page; // 0부터 시작
+
+    private int size;
+
+    private boolean hasNext;
+}
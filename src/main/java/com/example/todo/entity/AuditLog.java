@@ -1,9 +1,6 @@
 package com.example.todo.entity;
 
-import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
-import jakarta.persistence.Id;
+import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -17,14 +14,20 @@ public class AuditLog {
 
     @Id
     // sequence가 identity보다 postgres에선 유리함 <- db 왕복 적게 함
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_log_seq")
+    // 기존에 쓰던 시퀀스(audit_log_seq, 50씩 증가) 그대로. 50개 id를 한 번에 받아와서 insert마다 시퀀스 조회 안 함
+    // => 배치 insert 시 jdbc batch로 묶임
+    @SequenceGenerator(name = "audit_log_seq", sequenceName = "audit_log_seq", allocationSize = 50)
     private Long id;
 
     private String eventType; // 어떤 이벤트?
 
     private Long userId; // 누가
 
+    @Column(columnDefinition = "text")
     private String data; // 전체 데이터 (json)
 
+    // 월별 파티션 기준 컬럼 (postgres에선 pk가 (id, created_at). AuditPartitionManager 참고)
+    @Column(nullable = false)
     private LocalDateTime createdAt; // 언제
 }
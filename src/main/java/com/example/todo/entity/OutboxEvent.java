@@ -0,0 +1,49 @@
+package com.example.todo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// transactional outbox
+// 이벤트를 kafka로 바로 보내지 않고, 데이터 변경과 같은 트랜잭션 안에서 이 테이블에 먼저 저장
+// => 롤백된 데이터의 이벤트는 남지 않고, 커밋된 데이터의 이벤트는 유실되지 않음
+// 실제 전송은 OutboxRelay가 백그라운드에서 모아서 처리
+@Entity
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+// 아직 안 보낸 이벤트를 오래된 순으로 찾기 위한 인덱스
+@Table(indexes = @Index(name = "idx_outbox_event_unsent", columnList = "sent_at, id"))
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id; // kafka 헤더의 eventId로도 사용
+
+    @Column(nullable = false)
+    private String eventType; // TODO_CREATED ...
+
+    private Long aggregateId; // 어떤 todo의 이벤트인지
+
+    private Long userId; // 누구의 이벤트인지
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] payload; // 이벤트 내용. contentType 형식으로 인코딩된 바이트 (일괄 이벤트는 목록)
+
+    // payload 형식 (TodoEventCodec). null이면 이 컬럼이 생기기 전에 기록된 json
+    private String contentType;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // 이 시각 이후에 전송. 수정 이벤트는 합치기 위해 잠깐 늦춤 (null이면 바로. 이 컬럼 전에 기록된 이벤트)
+    private LocalDateTime availableAt;
+
+    // relay가 전송 중으로 잡아둔 기한. 이 시각 전까지 다른 relay는 안 가져가고, 합치기/삭제도 안 함
+    // 전송 실패 시 null로 돌려놓음. relay가 죽어서 남은 기한은 지나면 다시 전송 대상
+    private LocalDateTime leasedUntil;
+
+    private LocalDateTime sentAt; // kafka 전송 완료 시각. null이면 아직 안 보냄
+}
@@ -0,0 +1,38 @@
+package com.example.todo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+// 컨슈머가 처리를 끝낸 이벤트 id (kafka 헤더의 eventId = outbox_event.id)
+// 재시도 / 재전송으로 같은 이벤트가 다시 들어와도 감사 로그를 두 번 쓰지 않기 위한 기록
+// 감사 로그와 같은 트랜잭션에서 저장 => 둘 다 저장되거나 둘 다 안 됨
+@Entity
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(indexes = @Index(name = "idx_processed_event_processed_at", columnList = "processed_at"))
+public class ProcessedEvent implements Persistable<Long> {
+
+    @Id
+    private Long eventId;
+
+    @Column(nullable = false)
+    private LocalDateTime processedAt;
+
+
+    @Override
+    public Long getId() {
+        return eventId;
+    }
+
+    // id를 직접 넣는 엔티티라 save가 merge(select 후 update)로 가지 않게 항상 새 행으로 취급
+    // => 다른 컨슈머가 먼저 저장했으면 pk 중복으로 트랜잭션이 실패함 (재시도 때 중복으로 걸러짐)
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
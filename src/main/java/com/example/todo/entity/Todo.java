@@ -9,11 +9,22 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder // 메서드 체인 방식으로 객체 만들기 가능
+// 유저별 keyset 페이지 조회용 인덱스 (completed 필터 포함)
+@Table(indexes = {
+        @Index(name = "idx_todo_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_todo_user_completed_id", columnList = "user_id, completed, id"),
+        // delta sync: 유저별 since 이후 변경된 todo 조회용
+        @Index(name = "idx_todo_user_version", columnList = "user_id, version")
+})
 public class Todo {
 
     @Id // pk 선언
     // 자동으로 unique id 생성
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // IDENTITY는 insert를 바로 실행해야 id를 알 수 있어서 jdbc batch insert가 안 됨
+    // => 시퀀스에서 50개씩 미리 받아와서 여러 insert를 묶어서 보냄
+    // 기존 identity 컬럼의 시퀀스(todo_id_seq)를 그대로 사용 (README의 마이그레이션 참고)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "todo_id_seq")
+    @SequenceGenerator(name = "todo_id_seq", sequenceName = "todo_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -22,6 +33,10 @@ public class Todo {
     private String description;
 
     private boolean completed;
+
+    // 유저별 변경 번호. 생성/수정될 때마다 TodoVersionService에서 새로 발급
+    // (낙관적 락용 @Version 아님. 이 기능 전에 만들어진 todo는 null)
+    private Long version;
     
     // user 단방향 조회. lazy 로딩 설정
     @ManyToOne(fetch = FetchType.LAZY)
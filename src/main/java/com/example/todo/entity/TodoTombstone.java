@@ -0,0 +1,35 @@
+package com.example.todo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// 삭제된 todo 기록 (delta sync용)
+// todo 행은 지워지니 클라이언트에게 "이 id가 삭제됨"을 알려주기 위해 남겨둠
+@Entity
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+// since 이후 삭제된 todo 조회용 인덱스
+@Table(indexes = @Index(name = "idx_todo_tombstone_user_version", columnList = "user_id, version"))
+public class TodoTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "todo_tombstone_seq")
+    @SequenceGenerator(name = "todo_tombstone_seq", sequenceName = "todo_tombstone_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long todoId; // 삭제된 todo id
+
+    @Column(nullable = false)
+    private long version; // 삭제 시점의 변경 번호
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+}
@@ -0,0 +1,27 @@
+package com.example.todo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// 유저별 todo 변경 번호 카운터
+// todo가 생성/수정/삭제될 때마다 이 행의 version을 올리고 그 값을 todo(또는 tombstone)에 기록
+// 변경하는 트랜잭션이 이 행을 잠그고 있어서, 같은 유저의 변경은 번호 순서대로 커밋됨
+// => 클라이언트가 받은 version 이후로는 빠진 변경이 없음
+@Entity
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoVersionCounter {
+
+    @Id
+    private Long userId;
+
+    @Column(nullable = false)
+    private long version; // 마지막으로 발급한 변경 번호
+
+    // 정리된 tombstone 중 가장 큰 변경 번호
+    // 이보다 오래된 since로 요청하면 삭제 기록이 빠져 있을 수 있어서 전체 다시 받게 함
+    @Column(nullable = false)
+    private long tombstoneFloor;
+}
@@ -2,6 +2,10 @@ package com.example.todo.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Entity
 @Getter
@@ -10,12 +14,18 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Table(name = "users")
+// 2차 캐시 (HibernateCacheConfig). id로 조회 / username으로 조회(natural id) 모두 DB 대신 캐시에서
+// 엔티티를 통해 수정하면 커밋 시 캐시도 갱신, jpql update/delete는 해당 region 전체 삭제
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class User {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // 바뀌지 않는 값이라 natural id로 사용 (username -> id 매핑도 캐시됨)
+    @NaturalId
     @Column(unique = true, nullable = false)
     private String username;
 
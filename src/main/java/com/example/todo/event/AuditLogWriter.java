@@ -0,0 +1,112 @@
+package com.example.todo.event;
+
+import com.example.todo.entity.AuditLog;
+import com.example.todo.entity.ProcessedEvent;
+import com.example.todo.repository.AuditLogRepository;
+import com.example.todo.repository.ProcessedEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+// 이벤트별 감사 로그를 중복 없이 저장
+// 이미 처리한 eventId는 건너뛰고, 새로 처리한 eventId는 감사 로그와 같은 트랜잭션에서 processed_event에 기록
+// => 재시도 토픽 / 리밸런스 / DLT 재전송으로 같은 이벤트가 다시 와도 감사 로그는 한 번만
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditLogWriter {
+
+    private final AuditLogRepository auditLogRepository;
+    private final ProcessedEventRepository processedEventRepository;
+    private final MeterRegistry meterRegistry;
+
+    // 처리 기록 보관 기간. 이보다 늦게 다시 들어온 이벤트는 중복으로 못 거름 (DLT 재전송 주기보다 길게)
+    @Value("${spring.kafka.consumer.dedup-retention:7d}")
+    private Duration retention;
+
+    // 감사 로그 저장 시간
+    private Timer auditWrite;
+    // 이미 처리된 이벤트라 건너뛴 수
+    private Counter duplicates;
+
+
+    @PostConstruct
+    public void registerMetrics() {
+        auditWrite = Timer.builder("audit.write")
+                .description("감사 로그 저장 시간")
+                .register(meterRegistry);
+        duplicates = Counter.builder("kafka.consumer.duplicates")
+                .description("이미 처리된 이벤트라 건너뛴 메시지 수")
+                .register(meterRegistry);
+    }
+
+
+
+    // 이벤트 순서대로 저장. 저장한 감사 로그 수 반환
+    // 다른 컨슈머가 같은 이벤트를 동시에 저장하면 pk 중복으로 예외 => 다시 받으면 중복으로 걸러짐
+    @Transactional
+    public int write(List<Event> events) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            List<Long> ids = events.stream().map(Event::eventId).filter(Objects::nonNull).toList();
+            Set<Long> seen = ids.isEmpty() ? new HashSet<>() : new HashSet<>(processedEventRepository.findProcessedIds(ids));
+
+            LocalDateTime now = LocalDateTime.now();
+            List<AuditLog> logs = new ArrayList<>();
+            List<ProcessedEvent> processed = new ArrayList<>(ids.size());
+            for(Event event : events) {
+                // eventId가 없는 예전 메시지는 거를 방법이 없어서 그대로 저장
+                if(event.eventId() != null) {
+                    if(!seen.add(event.eventId())) {
+                        log.debug("이미 처리된 이벤트 건너뜀: {}", event.eventId());
+                        duplicates.increment();
+                        continue;
+                    }
+                    processed.add(ProcessedEvent.builder().eventId(event.eventId()).processedAt(now).build());
+                }
+                logs.addAll(event.logs());
+            }
+
+            auditLogRepository.saveAll(logs);
+            processedEventRepository.saveAll(processed);
+            // insert를 여기서 실행 => pk 중복을 바로 확인하고, 저장 시간에 insert까지 포함
+            processedEventRepository.flush();
+            return logs.size();
+        } finally {
+            sample.stop(auditWrite);
+        }
+    }
+
+
+
+    // 보관 기간이 지난 처리 기록 정리
+    @Scheduled(fixedDelayString = "${spring.kafka.consumer.dedup-cleanup-interval-ms:3600000}")
+    @Transactional
+    public void cleanup() {
+        int deleted = processedEventRepository.deleteProcessedBefore(LocalDateTime.now().minus(retention));
+        if(deleted > 0) {
+            log.info("처리된 이벤트 기록 정리: {}건 삭제", deleted);
+        }
+    }
+
+
+
+    // 메시지 1개 = 이벤트 1개 (eventId 헤더) => 감사 로그 여러 개일 수 있음 (일괄 이벤트)
+    public record Event(Long eventId, List<AuditLog> logs) {
+    }
+}
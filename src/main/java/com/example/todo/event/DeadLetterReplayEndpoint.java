@@ -0,0 +1,159 @@
+package com.example.todo.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// DLT(todo-created-dlt)에 쌓인 메시지를 원래 토픽으로 다시 보내는 관리 도구 (ADMIN만)
+// GET  /actuator/eventdlt : 파티션별로 아직 다시 안 보낸 메시지 수
+// POST /actuator/eventdlt {"max": 100} : 오래된 것부터 max개 다시 보냄
+// 어디까지 보냈는지는 전용 컨슈머 그룹(todo-dlt-replay)의 offset으로 기록 => 같은 메시지를 두 번 보내지 않음
+// 다시 보낸 메시지가 이미 처리된 이벤트면 컨슈머가 eventId로 거름
+@Slf4j
+@Component
+@Endpoint(id = "eventdlt")
+@RequiredArgsConstructor
+public class DeadLetterReplayEndpoint {
+
+    private static final String REPLAY_GROUP = "todo-dlt-replay";
+    // 재시도 / DLT 관련 헤더 (kafka_dlt-*, retry_topic-*). 다시 보낼 땐 빼서 재시도 횟수를 처음부터
+    private static final List<String> RETRY_HEADER_PREFIXES = List.of("kafka_", "retry_topic-");
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+
+    private final ConsumerFactory<String, byte[]> consumerFactory;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Value("${spring.kafka.topic.todo-created}")
+    private String topic;
+
+    @Value("${outbox.relay.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+
+    @ReadOperation
+    public Map<String, Object> pending() {
+        try(Consumer<String, byte[]> consumer = createConsumer(1)) {
+            List<TopicPartition> partitions = partitionsOf(consumer);
+            Map<TopicPartition, Long> ends = consumer.endOffsets(partitions);
+            Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+            Map<TopicPartition, Long> begins = consumer.beginningOffsets(partitions);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            long total = 0;
+            for(TopicPartition partition : partitions) {
+                OffsetAndMetadata offset = committed.get(partition);
+                long from = offset != null ? offset.offset() : begins.getOrDefault(partition, 0L);
+                long pending = Math.max(0, ends.getOrDefault(partition, 0L) - from);
+                result.put(String.valueOf(partition.partition()), pending);
+                total += pending;
+            }
+            result.put("total", total);
+            return result;
+        }
+    }
+
+
+    // 원래 토픽으로 보낸 뒤에만 offset 커밋 => 중간에 실패하면 보낸 데까지만 기록되고 나머지는 다음에
+    @WriteOperation
+    public Map<String, Object> replay(@Nullable Integer max) {
+        int limit = (max == null || max <= 0) ? 100 : max;
+        String dltTopic = dltTopic();
+
+        Map<TopicPartition, OffsetAndMetadata> done = new HashMap<>();
+        int replayed = 0;
+        try(Consumer<String, byte[]> consumer = createConsumer(limit)) {
+            consumer.assign(partitionsOf(consumer));
+            try {
+                while(replayed < limit) {
+                    ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                    if(records.isEmpty()) {
+                        break;
+                    }
+                    for(ConsumerRecord<String, byte[]> record : records) {
+                        if(replayed >= limit) {
+                            break;
+                        }
+                        send(record);
+                        done.put(new TopicPartition(dltTopic, record.partition()), new OffsetAndMetadata(record.offset() + 1));
+                        replayed++;
+                    }
+                }
+            } finally {
+                if(!done.isEmpty()) {
+                    consumer.commitSync(done);
+                }
+            }
+        }
+
+        log.info("DLT 메시지 {}건을 {}로 다시 보냄", replayed, topic);
+        return Map.of("replayed", replayed);
+    }
+
+
+
+    private void send(ConsumerRecord<String, byte[]> record) {
+        ProducerRecord<String, byte[]> replay = new ProducerRecord<>(topic, record.key(), record.value());
+        for(Header header : record.headers()) {
+            if(RETRY_HEADER_PREFIXES.stream().noneMatch(header.key()::startsWith)) {
+                replay.headers().add(header);
+            }
+        }
+        try {
+            kafkaTemplate.send(replay).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("DLT 재전송 중 인터럽트", e);
+        } catch(ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("DLT 재전송 실패: offset " + record.offset(), e);
+        }
+    }
+
+
+    private Consumer<String, byte[]> createConsumer(int maxPollRecords) {
+        Properties properties = new Properties();
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        return consumerFactory.createConsumer(REPLAY_GROUP, null, null, properties);
+    }
+
+    private List<TopicPartition> partitionsOf(Consumer<String, byte[]> consumer) {
+        String dltTopic = dltTopic();
+        List<PartitionInfo> infos = consumer.partitionsFor(dltTopic);
+        if(infos == null) {
+            return List.of();
+        }
+        return infos.stream().map(info -> new TopicPartition(dltTopic, info.partition())).toList();
+    }
+
+    private String dltTopic() {
+        return topic + "-dlt";
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.todo.event;
+
+import com.example.todo.entity.OutboxEvent;
+import com.example.todo.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// outbox 테이블에 쌓인 이벤트를 kafka로 전송하는 백그라운드 작업
+// 한 번에 여러 개를 보내고 전송 결과를 모아서 기다린 뒤, 성공한 것만 sent 처리
+// 1) 짧은 트랜잭션에서 보낼 행을 잡고(skip locked) 전송 중(leasedUntil)으로 표시
+// 2) 트랜잭션 / DB 연결 없이 kafka 전송 (kafka가 느려도 행 잠금 / 연결을 붙잡지 않음)
+// 3) 짧은 트랜잭션에서 성공한 것은 sent, 실패한 것은 전송 중 표시를 풀어서 다음 주기에 다시
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    public static final String EVENT_TYPE_HEADER = "eventType";
+    public static final String EVENT_ID_HEADER = "eventId";
+    // payload 형식 (TodoEventCodec.contentType). 없으면 json
+    public static final String CONTENT_TYPE_HEADER = "contentType";
+
+    private final OutboxEventRepository outboxEventRepository;
+    // kafka로 메시지 보내는 도구
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${spring.kafka.topic.todo-created}") // application.yml 값 주입
+    private String todoCreatedTopic;
+
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.relay.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    // 전송 중 표시 유지 시간. 이 안에 끝나지 않으면(relay가 죽는 등) 다른 relay가 다시 보냄 => send-timeout보다 충분히 길게
+    @Value("${outbox.relay.lease:2m}")
+    private Duration lease;
+
+    @Value("${outbox.retention:24h}")
+    private Duration retention;
+
+    // 가장 오래 기다린 이벤트가 기록된 뒤 전송되기까지 걸린 시간
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private Counter published;
+    private Counter failed;
+    private Timer batchTimer;
+    private DistributionSummary batchSizeSummary;
+
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("outbox.relay.lag", lagMillis, AtomicLong::get)
+                .description("outbox 이벤트 기록 후 kafka 전송까지 지연")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+
+        published = Counter.builder("outbox.relay.published")
+                .description("kafka로 전송 완료된 outbox 이벤트 수")
+                .register(meterRegistry);
+        failed = Counter.builder("outbox.relay.failed")
+                .description("kafka 전송에 실패한 outbox 이벤트 수 (다음 주기에 재전송)")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("outbox.relay.batch")
+                .description("outbox 배치 1번 처리 시간")
+                .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("outbox.relay.batch.size")
+                .description("outbox 배치 1번에 처리한 이벤트 수")
+                .register(meterRegistry);
+    }
+
+
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:200}")
+    public void relay() {
+        List<OutboxEvent> batch = claim();
+        if(batch.isEmpty()) {
+            lagMillis.set(0);
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        // 합치기 위해 일부러 늦춘 시간(availableAt)은 지연에서 뺌
+        OutboxEvent oldest = batch.get(0);
+        LocalDateTime since = oldest.getAvailableAt() != null ? oldest.getAvailableAt() : oldest.getCreatedAt();
+        lagMillis.set(Duration.between(since, LocalDateTime.now()).toMillis());
+
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        List<Long> failedIds = new ArrayList<>();
+        try {
+            send(batch, sentIds, failedIds);
+        } finally {
+            // 결과를 못 받은 것(인터럽트 / 예외)도 실패로 풀어줌
+            Set<Long> done = new HashSet<>(sentIds);
+            done.addAll(failedIds);
+            for(OutboxEvent event : batch) {
+                if(!done.contains(event.getId())) {
+                    failedIds.add(event.getId());
+                }
+            }
+            complete(sentIds, failedIds);
+        }
+
+        batchSizeSummary.record(batch.size());
+        sample.stop(batchTimer);
+        log.debug("📤 outbox 전송: {}/{}", sentIds.size(), batch.size());
+    }
+
+
+    // 다른 서버가 잡고 있는 행은 건너뛰고 가져와서 전송 중으로 표시
+    // 같은 유저의 앞선 이벤트를 다른 서버가 보내는 중이면 그 유저의 이벤트는 이번엔 안 가져감
+    // => relay가 여러 대여도 한 유저의 이벤트는 id 순서대로 kafka에 들어감
+    private List<OutboxEvent> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> batch = outboxEventRepository.findSendable(now, Limit.of(batchSize));
+            if(batch.isEmpty()) {
+                return batch;
+            }
+
+            List<Long> ids = batch.stream().map(OutboxEvent::getId).toList();
+            Set<Long> userIds = new HashSet<>();
+            for(OutboxEvent event : batch) {
+                if(event.getUserId() != null) {
+                    userIds.add(event.getUserId());
+                }
+            }
+            Set<Long> blocked = userIds.isEmpty() ? Set.of()
+                    : new HashSet<>(outboxEventRepository.findUsersWithEarlierInFlight(userIds, ids, ids.get(ids.size() - 1), now));
+
+            List<OutboxEvent> claimed = blocked.isEmpty() ? batch
+                    : batch.stream().filter(event -> !blocked.contains(event.getUserId())).toList();
+            if(claimed.size() < batch.size()) {
+                log.debug("다른 relay가 전송 중인 유저 {}명의 이벤트 {}건은 다음 주기에", blocked.size(), batch.size() - claimed.size());
+            }
+            if(!claimed.isEmpty()) {
+                outboxEventRepository.claim(claimed.stream().map(OutboxEvent::getId).toList(), now.plus(lease));
+            }
+            return claimed;
+        });
+    }
+
+
+    // 일단 전부 보내놓고 (비동기) 결과는 한꺼번에 기다림. 전체 대기는 send-timeout까지
+    // 한 유저(key)의 이벤트가 실패하면 그 뒤의 같은 유저 이벤트는 sent 처리 안 함 (보내기 전이면 안 보냄)
+    // => 실패한 것부터 다음 주기에 id 순서대로 다시 보내서 유저별 순서가 유지됨 (이미 간 것은 컨슈머가 eventId로 거름)
+    private void send(List<OutboxEvent> batch, List<Long> sentIds, List<Long> failedIds) {
+        Set<String> failedKeys = new HashSet<>();
+        List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(batch.size());
+        for(OutboxEvent event : batch) {
+            String key = keyOf(event);
+            if(failedKeys.contains(key)) {
+                futures.add(null);
+                continue;
+            }
+            long sendStart = System.nanoTime();
+            try {
+                futures.add(kafkaTemplate.send(toRecord(event))
+                        // 건별 전송 시간 (send 호출 ~ broker ack)
+                        .whenComplete((result, ex) -> sendTimer(event.getEventType(), ex == null)
+                                .record(System.nanoTime() - sendStart, TimeUnit.NANOSECONDS)));
+            } catch(RuntimeException e) {
+                // send 호출 자체가 실패 (메시지가 너무 큼, 메타데이터 대기 초과 등)
+                failedKeys.add(key);
+                futures.add(null);
+                log.error("❌ Kafka 전송 실패: outbox id={}", event.getId(), e);
+            }
+        }
+        kafkaTemplate.flush();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for(int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            String key = keyOf(event);
+            CompletableFuture<SendResult<String, byte[]>> future = futures.get(i);
+            if(future == null || failedKeys.contains(key)) {
+                failedKeys.add(key);
+                failedIds.add(event.getId());
+                failed.increment();
+                continue;
+            }
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                sentIds.add(event.getId());
+
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch(ExecutionException | TimeoutException e) {
+                // 실패한 이벤트는 sent 처리 안 함 -> 다음 주기에 다시 전송
+                failedKeys.add(key);
+                failedIds.add(event.getId());
+                failed.increment();
+                log.error("❌ Kafka 전송 실패: outbox id={}", event.getId(), e);
+            }
+        }
+    }
+
+
+    private void complete(List<Long> sentIds, List<Long> failedIds) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if(!sentIds.isEmpty()) {
+                outboxEventRepository.markSent(sentIds, LocalDateTime.now());
+            }
+            if(!failedIds.isEmpty()) {
+                outboxEventRepository.release(failedIds);
+            }
+        });
+        published.increment(sentIds.size());
+    }
+
+
+
+    // 보낸 지 retention 이상 지난 이벤트 정리
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void cleanup() {
+        int deleted = outboxEventRepository.deleteSentBefore(LocalDateTime.now().minus(retention));
+        if(deleted > 0) {
+            log.info("outbox 정리: {}건 삭제", deleted);
+        }
+    }
+
+
+
+    private Timer sendTimer(String eventType, boolean success) {
+        return Timer.builder("kafka.producer.send")
+                .description("kafka 메시지 1건 전송 시간 (broker ack까지)")
+                .tag("eventType", eventType)
+                .tag("result", success ? "success" : "failure")
+                .register(meterRegistry);
+    }
+
+
+
+    // key = userId => 한 유저의 이벤트는 같은 파티션으로 가서 순서가 지켜짐
+    private static String keyOf(OutboxEvent event) {
+        return event.getUserId() == null ? null : String.valueOf(event.getUserId());
+    }
+
+    private ProducerRecord<String, byte[]> toRecord(OutboxEvent event) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(todoCreatedTopic, keyOf(event), event.getPayload());
+
+        // consumer가 이벤트 종류와 중복 여부를 판단할 수 있게 헤더로 전달
+        record.headers().add(EVENT_TYPE_HEADER, event.getEventType().getBytes(StandardCharsets.UTF_8));
+        record.headers().add(EVENT_ID_HEADER, String.valueOf(event.getId()).getBytes(StandardCharsets.UTF_8));
+        if(event.getContentType() != null) {
+            record.headers().add(CONTENT_TYPE_HEADER, event.getContentType().getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+}
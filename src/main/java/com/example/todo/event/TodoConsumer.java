@@ -2,15 +2,41 @@ package com.example.todo.event;
 
 import com.example.todo.dto.TodoDto;
 import com.example.todo.entity.AuditLog;
-import com.example.todo.repository.AuditLogRepository;
+import com.example.todo.event.codec.TodoEventCodecs;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 
 @Slf4j
@@ -18,40 +44,255 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 // kafka에 등록된 event를 받아서, 이후 해야할 일들을 비동기로 처리하는 역할
 // => 메인 로직 빨리 끝남
+// spring.kafka.batch-listener.enabled 값에 따라 단건 / 배치 리스너 중 하나만 동작
+// 메시지 key = userId 라서 한 유저의 이벤트는 항상 같은 파티션에 순서대로 들어옴
+// 같은 이벤트가 여러 번 들어와도 감사 로그는 한 번만 저장됨 (AuditLogWriter가 eventId로 거름)
 public class TodoConsumer {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final AuditLogRepository auditLogRepository;
+    private final ObjectMapper objectMapper; // 감사 로그에 남길 json
+    private final TodoEventCodecs codecs;
+    private final AuditLogWriter auditLogWriter;
+    private final MeterRegistry meterRegistry;
+
+    // 배치 모드에서 key(유저)별 묶음을 동시에 처리할 스레드 수. 0이면 CPU 코어 수
+    @Value("${spring.kafka.batch-listener.key-parallelism:0}")
+    private int keyParallelism;
+
+    private ExecutorService keyWorkers;
+
+    // 메시지 처리 시간 (모드별)
+    private Timer singleProcess;
+    private Timer batchProcess;
+    // 메시지가 kafka에 기록된 뒤 처리되기까지 걸린 시간 (컨슈머가 얼마나 밀려 있는지)
+    // offset 기준 lag은 kafka 클라이언트 지표(kafka_consumer_fetch_manager_records_lag_max)로 나감
+    private Timer eventAge;
+    // 배치 1번에 들어온 key(유저) 수 = 동시에 처리할 수 있는 묶음 수
+    private DistributionSummary batchKeys;
+    // 재시도를 다 쓰고 DLT로 간 메시지 수
+    private Counter deadLettered;
+
+
+    @PostConstruct
+    public void registerMetrics() {
+        int poolSize = keyParallelism > 0 ? keyParallelism : Runtime.getRuntime().availableProcessors();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("todo-event-");
+        threadFactory.setDaemon(true);
+        // 리스너가 배치 처리가 끝날 때까지 기다리므로 대기열은 poll 1번 분량을 넘지 않음
+        keyWorkers = Executors.newFixedThreadPool(poolSize, threadFactory);
+
+        singleProcess = processTimer("single");
+        batchProcess = processTimer("batch");
+        eventAge = Timer.builder("kafka.consumer.event.age")
+                .description("kafka 기록 시점부터 컨슈머 처리까지 지연")
+                .register(meterRegistry);
+        batchKeys = DistributionSummary.builder("kafka.consumer.batch.keys")
+                .description("배치 1번에 들어온 key(유저) 수")
+                .register(meterRegistry);
+        deadLettered = Counter.builder("kafka.consumer.dlt")
+                .description("재시도 후에도 실패해서 DLT로 간 메시지 수")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        keyWorkers.shutdown();
+    }
 
 
     // kafka에 메시지가 들어오면 자동으로 실행 됨 <= kafkaListener
     // topics : 어떤 topic의 메시지를 읽어올지
     // groupId : 같은 그룹끼리 메시지 분담 처리 가능
-    @KafkaListener(topics = "${spring.kafka.topic.todo-created}", groupId = "todo-group")
-    public void handleTodoCreated(String message) {
+    // 실패하면 재시도 토픽(todo-created-retry-0, -1 ...)으로 넘겨서 점점 늦게 다시 처리 => 원래 파티션은 막히지 않음
+    // 재시도를 다 쓰거나 다시 해도 안 되는 메시지(형식 오류)는 DLT(todo-created-dlt)로. DLT는 actuator eventdlt로 다시 보낼 수 있음
+    // (재시도 토픽으로 넘어간 메시지는 같은 유저의 다음 이벤트보다 늦게 처리될 수 있음)
+    @RetryableTopic(
+            attempts = "${spring.kafka.retry.attempts:4}",
+            backoff = @Backoff(delayExpression = "${spring.kafka.retry.delay-ms:1000}",
+                    multiplierExpression = "${spring.kafka.retry.multiplier:5}",
+                    maxDelayExpression = "${spring.kafka.retry.max-delay-ms:60000}"),
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+            dltTopicSuffix = "-dlt",
+            // 형식이 잘못된 메시지는 다시 받아도 실패하니 바로 DLT로
+            exclude = IllegalArgumentException.class,
+            kafkaTemplate = "kafkaTemplate")
+    @KafkaListener(topics = "${spring.kafka.topic.todo-created}", groupId = "todo-group",
+            autoStartup = "#{!${spring.kafka.batch-listener.enabled:false}}")
+    public void handleTodoCreated(ConsumerRecord<String, byte[]> record) throws JsonProcessingException {
+        long start = System.nanoTime();
+        recordAge(record);
 
         try {
-            // 받은 json -> 객체
-            TodoDto dto = objectMapper.readValue(message, TodoDto.class);
-            log.info("📥 Kafka 메시지 수신: {}", dto);
             // 추후에 해야할 일들 생기면 여기에 추가하기만 하면 끝
             // ex) 알림, 메일 보내기, 감사로그 저장 등등
 
-            // 감사 로그 저장
-            AuditLog logEntity = AuditLog.builder()
-                    .eventType("TODO_CREATED")
+            // 감사 로그 저장 (일괄 생성 이벤트면 todo 수만큼)
+            // 예외는 삼키지 않고 던짐 => 재시도 토픽 / DLT로 (메인 로직은 이미 커밋돼서 영향 없음)
+            auditLogWriter.write(List.of(toEvent(record)));
+        } finally {
+            singleProcess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+
+    // 재시도까지 실패한 메시지. 배치 모드에서 실패한 메시지도 같은 DLT에 쌓임
+    // DLT에 그대로 남아 있어서 원인을 고친 뒤 다시 보내면 됨
+    @DltHandler
+    public void handleDeadLetter(ConsumerRecord<String, byte[]> record) {
+        deadLettered.increment();
+        log.error("❌ Kafka 메시지 처리 최종 실패 (DLT): {} eventId={} - {}",
+                describe(record), header(record, OutboxRelay.EVENT_ID_HEADER),
+                header(record, KafkaHeaders.DLT_EXCEPTION_MESSAGE));
+    }
+
+
+
+    // 배치 모드: 한 번 poll 한 레코드들을 key(유저)별로 묶어서 묶음끼리 동시에 처리
+    // 같은 유저의 이벤트는 한 묶음 안에서 순서대로, 다른 유저끼리는 병렬
+    // => 파티션 수보다 CPU / DB 커넥션 수만큼 처리량이 늘어남
+    // 묶음마다 감사 로그를 한 트랜잭션에서 jdbc batch insert로 저장 (SEQUENCE id라 insert를 묶을 수 있음)
+    // offset은 리스너가 끝난 뒤에만 커밋. 저장에 실패한 묶음이 있으면 그 중 가장 앞선 레코드부터 다시 받음
+    // (이미 저장된 뒤쪽 다른 유저 레코드는 한 번 더 들어오지만 eventId로 걸러짐)
+    // 같은 레코드가 계속 실패하면 몇 번 재시도 후 DLT로 보내고 넘어감 (KafkaConfig)
+    @KafkaListener(topics = "${spring.kafka.topic.todo-created}", groupId = "todo-group",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${spring.kafka.batch-listener.enabled:false}")
+    public void handleTodoCreatedBatch(List<ConsumerRecord<String, byte[]>> records) {
+        long start = System.nanoTime();
+
+        // key별 레코드 위치 (poll 순서 유지). key 없는 예전 메시지는 하나로 묶어서 순서대로
+        Map<String, List<Integer>> buckets = new LinkedHashMap<>();
+        for(int i = 0; i < records.size(); i++) {
+            recordAge(records.get(i));
+            buckets.computeIfAbsent(records.get(i).key(), key -> new ArrayList<>()).add(i);
+        }
+        batchKeys.record(buckets.size());
+
+        List<List<Integer>> groups = new ArrayList<>(buckets.values());
+        List<Future<Integer>> futures = new ArrayList<>(groups.size());
+        for(List<Integer> group : groups) {
+            futures.add(keyWorkers.submit(() -> processBucket(records, group)));
+        }
+
+        // 모든 묶음이 끝날 때까지 기다린 뒤 실패한 것 중 가장 앞선 위치를 찾음
+        int saved = 0;
+        int failedIndex = -1;
+        Throwable failure = null;
+        for(int i = 0; i < futures.size(); i++) {
+            try {
+                saved += futures.get(i).get();
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("배치 처리 중 인터럽트", e);
+            } catch(ExecutionException e) {
+                // 변환 실패면 그 레코드 위치, 저장 실패면 묶음의 첫 레코드 위치
+                int index = groups.get(i).get(0);
+                Throwable cause = e.getCause();
+                if(cause instanceof BatchListenerFailedException failed) {
+                    index = failed.getIndex();
+                    cause = failed.getCause();
+                }
+                if(failedIndex < 0 || index < failedIndex) {
+                    failedIndex = index;
+                    failure = cause;
+                }
+            }
+        }
+
+        batchProcess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if(failedIndex >= 0) {
+            // 이 위치 앞까지는 커밋하고 여기부터 다시 받게 함 (DefaultErrorHandler)
+            throw new BatchListenerFailedException("감사 로그 처리 실패", failure, failedIndex);
+        }
+        log.info("📥 Kafka 메시지 배치 처리: {}건 (key {}개)", saved, buckets.size());
+    }
+
+
+    // 한 key(유저)의 레코드들을 순서대로 변환해서 한 번에 저장. 저장한 감사 로그 수 반환
+    private int processBucket(List<ConsumerRecord<String, byte[]>> records, List<Integer> bucket) {
+        List<AuditLogWriter.Event> events = new ArrayList<>(bucket.size());
+        for(int index : bucket) {
+            ConsumerRecord<String, byte[]> record = records.get(index);
+            try {
+                events.add(toEvent(record));
+            } catch (Exception e) {
+                // 형식이 잘못된 메시지: 앞의 것까지 저장하고 이 위치에서 실패 => 재시도 없이 DLT로 (KafkaConfig)
+                log.error("❌ Kafka 메시지 변환 실패: {}", describe(record), e);
+                auditLogWriter.write(events);
+                throw new BatchListenerFailedException("Kafka 메시지 변환 실패", e, index);
+            }
+        }
+
+        return auditLogWriter.write(events);
+    }
+
+
+
+    // payload 형식은 relay가 넣어준 contentType 헤더로 구분 (없으면 예전 json 메시지)
+    // 일괄 생성 이벤트는 todo 하나당 감사 로그 하나로 풀어서 저장
+    private AuditLogWriter.Event toEvent(ConsumerRecord<String, byte[]> record) throws JsonProcessingException {
+        List<TodoDto> todos = codecs.forContentType(header(record, OutboxRelay.CONTENT_TYPE_HEADER))
+                .decode(record.value());
+        String eventType = auditEventType(record);
+
+        List<AuditLog> logs = new ArrayList<>(todos.size());
+        for(TodoDto dto : todos) {
+            log.debug("📥 Kafka 메시지 수신: {}", dto);
+            logs.add(AuditLog.builder()
+                    .eventType(eventType)
                     .userId(dto.getUserId())
-                    .data(message) // 투두 dto의 json 데이터 그대로 저장
+                    .data(objectMapper.writeValueAsString(dto)) // 감사 로그는 읽기 쉽게 json으로 저장
                     .createdAt(LocalDateTime.now())
-                    .build();
+                    .build());
+        }
+        return new AuditLogWriter.Event(eventId(record), logs);
+    }
 
-            auditLogRepository.save(logEntity);
 
-        } catch (Exception e) {
+    private Timer processTimer(String mode) {
+        return Timer.builder("kafka.consumer.process")
+                .description("kafka 메시지 처리 시간 (단건 / 배치 1번)")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
 
-            // 이벤트 처리 담당이라 실패해도 메인 로직에 영향 없음 
-            // kafka가 기본적으로 재시도/보류 처리도 지원함
-            log.error("❌ Kafka 메시지 처리 실패: {}", message, e);
+    private void recordAge(ConsumerRecord<String, byte[]> record) {
+        long age = System.currentTimeMillis() - record.timestamp();
+        if(age >= 0) {
+            eventAge.record(age, TimeUnit.MILLISECONDS);
         }
     }
+
+
+    // 감사 로그에는 todo 하나 기준 이벤트 종류로 남김 (일괄 생성 => 생성)
+    // 헤더 없이 들어온 예전 메시지는 단건 생성 이벤트
+    private static String auditEventType(ConsumerRecord<String, byte[]> record) {
+        String eventType = header(record, OutboxRelay.EVENT_TYPE_HEADER);
+        if(eventType == null || TodoProducer.TODO_BATCH_CREATED.equals(eventType)) {
+            return TodoProducer.TODO_CREATED;
+        }
+        return eventType;
+    }
+
+    // outbox 이벤트 id. 헤더가 없거나 이상하면 null (중복 확인 안 함)
+    private static Long eventId(ConsumerRecord<String, byte[]> record) {
+        String eventId = header(record, OutboxRelay.EVENT_ID_HEADER);
+        if(eventId == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(eventId);
+        } catch(NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String header(ConsumerRecord<String, byte[]> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    // payload는 바이너리일 수 있어서 로그엔 위치만
+    private static String describe(ConsumerRecord<String, byte[]> record) {
+        return record.topic() + "-" + record.partition() + "@" + record.offset();
+    }
 }
@@ -1,46 +1,175 @@
 package com.example.todo.event;
 
 import com.example.todo.dto.TodoDto;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.todo.entity.OutboxEvent;
+import com.example.todo.event.codec.TodoEventCodec;
+import com.example.todo.event.codec.TodoEventCodecs;
+import com.example.todo.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service // 비즈니스 로직 일부이기 때문에 service 클래스로 등록
 @RequiredArgsConstructor
 @Slf4j
-// Kafka로 메시지 (이벤트) 를 보내는 역할 담당
+// Kafka로 보낼 메시지 (이벤트) 를 outbox 테이블에 기록하는 역할 담당
+// 실제 전송은 OutboxRelay가 커밋된 이벤트만 모아서 처리
 // Consumer 쪽에서 받아서 이후 해야할 일들을 메인로직과 별개로 실행
 public class TodoProducer {
 
-    // kafka로 메시지 보내는 도구
-    private final KafkaTemplate<String,String> kafkaTemplate;
-    private final ObjectMapper objectMapper; // 자바 객체 -> json
+    public static final String TODO_CREATED = "TODO_CREATED";
+    // 일괄 생성 이벤트. payload는 생성된 todo 목록
+    public static final String TODO_BATCH_CREATED = "TODO_BATCH_CREATED";
+    // 수정 이벤트 (완료 처리 포함). payload는 수정된 todo 하나
+    public static final String TODO_UPDATED = "TODO_UPDATED";
+    // 삭제 이벤트. payload는 삭제된 todo 목록 (id, userId만 있음)
+    public static final String TODO_DELETED = "TODO_DELETED";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TodoEventCodecs codecs; // todo -> payload 바이트 (event.codec 설정)
+    private final MeterRegistry meterRegistry;
+
+    // 수정 이벤트를 이 시간만큼 늦게 보내고, 그 사이 같은 todo가 또 수정되면 이벤트 하나로 합침
+    // 0이면 합치지 않고 바로 보냄
+    @Value("${outbox.coalesce-window:2s}")
+    private Duration coalesceWindow;
 
-    @Value("${spring.kafka.topic.todo-created}") // application.yml 값 주입
-    private String todoCreatedTopic;
+    private Counter coalesced;
 
 
+    @PostConstruct
+    public void registerMetrics() {
+        coalesced = Counter.builder("outbox.coalesced")
+                .description("아직 안 보낸 이벤트에 합쳐져서 따로 기록되지 않은 이벤트 수")
+                .register(meterRegistry);
+    }
+
 
-    // 생성 이벤트를 kafka에 전송하는 메서드
+
+    // 생성 이벤트를 outbox에 기록하는 메서드
+    // 데이터 변경과 같은 트랜잭션에서만 호출되어야 함 (없으면 예외)
+    @Transactional(propagation = Propagation.MANDATORY)
     public void sendTodoCreated(TodoDto dto) {
+        append(TODO_CREATED, dto.getId(), dto.getUserId(), List.of(dto), LocalDateTime.now());
+    }
+
+
+    // 일괄 생성은 todo마다 이벤트를 남기지 않고 하나로 묶어서 기록
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void sendTodosCreated(List<TodoDto> dtos) {
+        if(dtos.isEmpty()) {
+            return;
+        }
+        append(TODO_BATCH_CREATED, null, dtos.get(0).getUserId(), dtos, LocalDateTime.now());
+    }
 
-        try {
-            // data -> json
-            String data = objectMapper.writeValueAsString(dto);
-            // 실제로 kafka의 topic에 메시지 보내기
-            kafkaTemplate.send(todoCreatedTopic, data);
-            log.info("📤 Kafka 전송 성공: {}", data);
 
-        } catch (Exception e) {
 
-            log.error("❌ Kafka 전송 실패", e);
-            // 서비스 로직의 일부이기 때문에 메시지 못보내면 비즈니스 실패로 봐서 런타임 예외 던짐
-            throw new RuntimeException("Kafka 메시지 전송 중 오류 발생", e);
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void sendTodoUpdated(TodoDto dto) {
+        sendTodosUpdated(List.of(dto));
+    }
+
+
+    // 수정 이벤트는 todo마다 하나씩 (todo별로 합치기 위해)
+    // 아직 안 보낸(대기 중인) 같은 todo의 수정 이벤트가 있으면 내용만 최신으로 바꿈
+    // => 짧은 시간에 여러 번 고쳐도 마지막 상태 하나만 전송
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void sendTodosUpdated(List<TodoDto> dtos) {
+        if(dtos.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<Long, Long> pending = new HashMap<>();
+        if(!coalesceWindow.isZero()) {
+            List<Long> ids = dtos.stream().map(TodoDto::getId).toList();
+            for(OutboxEvent event : outboxEventRepository.findPending(TODO_UPDATED, ids, now)) {
+                pending.put(event.getAggregateId(), event.getId());
+            }
         }
 
+        TodoEventCodec codec = codecs.current();
+        for(TodoDto dto : dtos) {
+            Long pendingId = pending.get(dto.getId());
+            // relay가 그 사이 보냈으면 (sentAt이 채워짐) 0건 => 새로 기록
+            if(pendingId != null
+                    && outboxEventRepository.replacePayload(pendingId, codec.encode(List.of(dto)), codec.contentType()) > 0) {
+                coalesced.increment();
+                continue;
+            }
+            append(TODO_UPDATED, dto.getId(), dto.getUserId(), List.of(dto), now.plus(coalesceWindow));
+        }
+    }
+
+
+
+    // 삭제 이벤트. 삭제된 todo의 대기 중인 수정 이벤트는 보낼 필요가 없어서 지움
+    // (삭제가 수정보다 먼저 전송되는 일도 막음)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void sendTodosDeleted(Long userId, Collection<Long> ids) {
+        if(ids.isEmpty()) {
+            return;
+        }
+
+        int dropped = outboxEventRepository.deletePending(TODO_UPDATED, ids);
+        coalesced.increment(dropped);
+
+        List<TodoDto> deleted = new ArrayList<>(ids.size());
+        for(Long id : ids) {
+            deleted.add(TodoDto.builder().id(id).userId(userId).build());
+        }
+        Long aggregateId = ids.size() == 1 ? ids.iterator().next() : null;
+        append(TODO_DELETED, aggregateId, userId, deleted, LocalDateTime.now());
+    }
+
+
+
+    // 이벤트 기록 시간 (인코딩 + outbox insert). eventType은 위 상수들뿐이라 태그 수가 제한됨
+    // availableAt 이후에 relay가 전송
+    private void append(String eventType, Long aggregateId, Long userId, List<TodoDto> todos, LocalDateTime availableAt) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "failure";
+        try {
+            TodoEventCodec codec = codecs.current();
+
+            outboxEventRepository.save(OutboxEvent.builder()
+                    .eventType(eventType)
+                    .aggregateId(aggregateId)
+                    .userId(userId)
+                    .payload(codec.encode(todos))
+                    .contentType(codec.contentType())
+                    .createdAt(LocalDateTime.now())
+                    .availableAt(availableAt)
+                    .build());
+            result = "success";
+
+        } catch (IllegalArgumentException e) {
+
+            log.error("❌ 이벤트 직렬화 실패", e);
+            // 서비스 로직의 일부이기 때문에 이벤트를 못 남기면 비즈니스 실패로 봐서 런타임 예외 던짐 (롤백)
+            throw new RuntimeException("이벤트 기록 중 오류 발생", e);
+        } finally {
+            sample.stop(Timer.builder("outbox.append")
+                    .description("이벤트를 outbox에 기록하는 시간")
+                    .tag("eventType", eventType)
+                    .tag("result", result)
+                    .register(meterRegistry));
+        }
     }
 }
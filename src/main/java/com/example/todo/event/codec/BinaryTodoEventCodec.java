@@ -0,0 +1,233 @@
+package com.example.todo.event.codec;
+
+import com.example.todo.dto.TodoDto;
+import org.springframework.stereotype.Component;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 작은 바이너리 형식. json보다 필드 이름 / 따옴표 / 숫자 문자열이 없어서 작고 빠름
+//
+// [magic 'T'][형식 버전][todo 개수 varint] + todo마다 [길이 varint][본문]
+// 본문 = [flags 1바이트] + flags에 표시된 필드만 순서대로
+//        id(varint) / title(길이+utf8) / description(길이+utf8) / userId(varint) / version(varint)
+// 숫자는 zigzag varint (작은 값은 1~2바이트)
+//
+// 호환 규칙: 필드는 본문 끝에만 추가하고 새 flag 비트를 씀. todo마다 길이가 있어서
+// 예전 decoder는 모르는 필드를 건너뛰고, 새 decoder는 예전 메시지에 없는 필드를 null로 읽음
+// 기존 필드의 의미/순서를 바꿔야 하면 버전을 올리고 decode에 이전 버전 처리를 남겨둠
+@Component
+public class BinaryTodoEventCodec implements TodoEventCodec {
+
+    public static final String CONTENT_TYPE = "application/x-todo-event";
+
+    static final byte MAGIC = 'T';
+    static final byte VERSION = 1;
+
+    private static final int COMPLETED = 1;
+    private static final int HAS_ID = 1 << 1;
+    private static final int HAS_TITLE = 1 << 2;
+    private static final int HAS_DESCRIPTION = 1 << 3;
+    private static final int HAS_USER_ID = 1 << 4;
+    private static final int HAS_VERSION = 1 << 5;
+
+
+    @Override
+    public String name() {
+        return "binary";
+    }
+
+    @Override
+    public String contentType() {
+        return CONTENT_TYPE;
+    }
+
+
+
+    @Override
+    public byte[] encode(List<TodoDto> todos) {
+        Writer out = new Writer(16 + todos.size() * 64);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeVarLong(todos.size());
+
+        // 본문 길이를 먼저 써야 해서 todo 하나씩 따로 쓴 뒤 복사
+        Writer body = new Writer(64);
+        for(TodoDto todo : todos) {
+            body.reset();
+            writeTodo(body, todo);
+            out.writeVarLong(body.pos);
+            out.writeBytes(body.buf, 0, body.pos);
+        }
+        return out.toByteArray();
+    }
+
+
+    private static void writeTodo(Writer out, TodoDto todo) {
+        int flags = (todo.isCompleted() ? COMPLETED : 0)
+                | (todo.getId() != null ? HAS_ID : 0)
+                | (todo.getTitle() != null ? HAS_TITLE : 0)
+                | (todo.getDescription() != null ? HAS_DESCRIPTION : 0)
+                | (todo.getUserId() != null ? HAS_USER_ID : 0)
+                | (todo.getVersion() != null ? HAS_VERSION : 0);
+        out.writeByte(flags);
+
+        if(todo.getId() != null) {
+            out.writeZigZag(todo.getId());
+        }
+        if(todo.getTitle() != null) {
+            out.writeString(todo.getTitle());
+        }
+        if(todo.getDescription() != null) {
+            out.writeString(todo.getDescription());
+        }
+        if(todo.getUserId() != null) {
+            out.writeZigZag(todo.getUserId());
+        }
+        if(todo.getVersion() != null) {
+            out.writeZigZag(todo.getVersion());
+        }
+    }
+
+
+
+    @Override
+    public List<TodoDto> decode(byte[] payload) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(payload);
+            if(in.get() != MAGIC) {
+                throw new IllegalArgumentException("todo 이벤트 형식이 아님");
+            }
+            int version = in.get();
+            if(version < 1) {
+                throw new IllegalArgumentException("알 수 없는 이벤트 형식 버전: " + version);
+            }
+
+            long count = readVarLong(in);
+            // todo 하나는 최소 2바이트 (길이 + flags) => 잘못된 개수로 큰 배열을 만들지 않게
+            if(count < 0 || count > in.remaining() / 2) {
+                throw new IllegalArgumentException("잘못된 todo 개수: " + count);
+            }
+
+            List<TodoDto> todos = new ArrayList<>((int) count);
+            for(long i = 0; i < count; i++) {
+                int length = readLength(in);
+                // 이 todo의 본문만 잘라서 읽음. 뒤에 모르는 필드가 있어도 다음 todo 위치는 그대로
+                todos.add(readTodo(in.slice(in.position(), length)));
+                in.position(in.position() + length);
+            }
+            return todos;
+        } catch(BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("todo 이벤트가 중간에 잘림", e);
+        }
+    }
+
+
+    // 버전 1 필드. 이후 버전에서 추가된 필드는 여기 아래에 이어서 읽음
+    private static TodoDto readTodo(ByteBuffer in) {
+        int flags = in.get() & 0xFF;
+
+        return TodoDto.builder()
+                .completed((flags & COMPLETED) != 0)
+                .id((flags & HAS_ID) != 0 ? readZigZag(in) : null)
+                .title((flags & HAS_TITLE) != 0 ? readString(in) : null)
+                .description((flags & HAS_DESCRIPTION) != 0 ? readString(in) : null)
+                .userId((flags & HAS_USER_ID) != 0 ? readZigZag(in) : null)
+                .version((flags & HAS_VERSION) != 0 ? readZigZag(in) : null)
+                .build();
+    }
+
+
+
+    private static long readVarLong(ByteBuffer in) {
+        long result = 0;
+        for(int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("varint가 너무 김");
+    }
+
+    private static long readZigZag(ByteBuffer in) {
+        long n = readVarLong(in);
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    private static int readLength(ByteBuffer in) {
+        long length = readVarLong(in);
+        if(length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("잘못된 길이: " + length);
+        }
+        return (int) length;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readLength(in);
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+
+
+    // 크기가 늘어나는 바이트 배열
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        private Writer(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        private void reset() {
+            pos = 0;
+        }
+
+        private void ensure(int length) {
+            if(pos + length > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + length));
+            }
+        }
+
+        private void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        private void writeBytes(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, buf, pos, length);
+            pos += length;
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        private void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+}
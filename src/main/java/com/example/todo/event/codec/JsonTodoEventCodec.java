@@ -0,0 +1,64 @@
+package com.example.todo.event.codec;
+
+import com.example.todo.dto.TodoDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// 기존 json 형식 (event.codec=json 이거나 contentType 헤더가 없는 예전 메시지)
+// 단건은 객체 하나, 여러 개는 배열 => 예전 메시지와 같은 모양
+@Component
+@RequiredArgsConstructor
+public class JsonTodoEventCodec implements TodoEventCodec {
+
+    public static final String CONTENT_TYPE = "application/json";
+
+    // spring이 설정한 ObjectMapper (날짜 모듈 등 등록됨)
+    private final ObjectMapper objectMapper;
+
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public String contentType() {
+        return CONTENT_TYPE;
+    }
+
+
+
+    @Override
+    public byte[] encode(List<TodoDto> todos) {
+        try {
+            return objectMapper.writeValueAsBytes(todos.size() == 1 ? todos.get(0) : todos);
+        } catch(IOException e) {
+            throw new IllegalArgumentException("이벤트 json 변환 실패", e);
+        }
+    }
+
+
+    @Override
+    public List<TodoDto> decode(byte[] payload) {
+        try {
+            JsonNode root = objectMapper.readTree(payload);
+            if(!root.isArray()) {
+                return List.of(objectMapper.treeToValue(root, TodoDto.class));
+            }
+
+            List<TodoDto> todos = new ArrayList<>(root.size());
+            for(JsonNode todo : root) {
+                todos.add(objectMapper.treeToValue(todo, TodoDto.class));
+            }
+            return todos;
+        } catch(IOException e) {
+            throw new IllegalArgumentException("이벤트 json 읽기 실패", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.todo.event.codec;
+
+import com.example.todo.dto.TodoDto;
+
+import java.util.List;
+
+// todo 이벤트 payload <-> 바이트 변환
+// outbox에 기록할 때 encode, 컨슈머가 받을 때 kafka contentType 헤더로 codec을 골라서 decode
+// 단건 이벤트도 목록(1개)으로 다룸
+public interface TodoEventCodec {
+
+    // 설정값(event.codec)으로 고를 때 쓰는 이름
+    String name();
+
+    // kafka 헤더 / outbox에 같이 저장되는 형식 이름
+    String contentType();
+
+    byte[] encode(List<TodoDto> todos);
+
+    // 형식이 잘못됐으면 IllegalArgumentException
+    List<TodoDto> decode(byte[] payload);
+}
@@ -0,0 +1,61 @@
+package com.example.todo.event.codec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 등록된 codec 목록
+// 보낼 때는 설정(event.codec)으로 고른 codec, 받을 때는 메시지의 contentType으로 고름
+// => codec 설정을 바꿔도 이미 쌓인 outbox / kafka 메시지는 원래 형식으로 읽힘
+@Component
+public class TodoEventCodecs {
+
+    private final Map<String, TodoEventCodec> byContentType = new HashMap<>();
+    private final TodoEventCodec current;
+    private final TodoEventCodec fallback;
+
+
+    public TodoEventCodecs(List<TodoEventCodec> codecs,
+                           @Value("${event.codec:binary}") String codecName) {
+        TodoEventCodec selected = null;
+        TodoEventCodec json = null;
+        for(TodoEventCodec codec : codecs) {
+            byContentType.put(codec.contentType(), codec);
+            if(codec.name().equals(codecName)) {
+                selected = codec;
+            }
+            if(JsonTodoEventCodec.CONTENT_TYPE.equals(codec.contentType())) {
+                json = codec;
+            }
+        }
+
+        if(selected == null) {
+            throw new IllegalArgumentException("알 수 없는 event.codec: " + codecName);
+        }
+        this.current = selected;
+        this.fallback = json;
+    }
+
+
+
+    // 새 이벤트를 기록할 때 쓰는 codec
+    public TodoEventCodec current() {
+        return current;
+    }
+
+
+    // contentType이 없으면 (이 기능 전에 만들어진 메시지) json
+    public TodoEventCodec forContentType(String contentType) {
+        if(contentType == null) {
+            return fallback;
+        }
+        TodoEventCodec codec = byContentType.get(contentType);
+        if(codec == null) {
+            throw new IllegalArgumentException("지원하지 않는 이벤트 형식: " + contentType);
+        }
+        return codec;
+    }
+}
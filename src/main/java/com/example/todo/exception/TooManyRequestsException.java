@@ -0,0 +1,11 @@
+package com.example.todo.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 서버가 처리할 수 있는 양을 넘어서 요청을 바로 거절할 때 발생하는 예외
+public class TooManyRequestsException extends BaseException{
+
+    public TooManyRequestsException() {
+        super("요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해주세요.", HttpStatus.TOO_MANY_REQUESTS);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.todo.repository;
+
+import com.example.todo.entity.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // 아직 안 보낸 이벤트 중 전송 시각이 됐고 다른 relay가 전송 중이 아닌 것을 오래된 순으로 limit 개
+    // 여러 서버의 relay가 동시에 돌아도 같은 행을 잡지 않도록 select ... for update skip locked
+    // (lock timeout -2 = 하이버네이트의 SKIP_LOCKED). 잠금은 claim까지 짧은 트랜잭션 동안만
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from OutboxEvent e where e.sentAt is null and (e.availableAt is null or e.availableAt <= :now)"
+            + " and (e.leasedUntil is null or e.leasedUntil < :now) order by e.id")
+    List<OutboxEvent> findSendable(@Param("now") LocalDateTime now, Limit limit);
+
+    // 가져온 행(ids)보다 앞선데 같이 못 가져온 같은 유저의 전송 대상 이벤트가 있는 유저
+    // = 다른 relay가 전송 중이거나 지금 잡는 중(skip locked로 빠짐)인 이벤트
+    // 이 유저의 이벤트를 지금 보내면 앞의 것보다 먼저 kafka에 들어갈 수 있음
+    @Query("select distinct e.userId from OutboxEvent e where e.sentAt is null and e.userId in :userIds"
+            + " and e.id < :before and e.id not in :ids and (e.availableAt is null or e.availableAt <= :now)")
+    List<Long> findUsersWithEarlierInFlight(@Param("userIds") Collection<Long> userIds,
+                                            @Param("ids") Collection<Long> ids,
+                                            @Param("before") Long before,
+                                            @Param("now") LocalDateTime now);
+
+    // 전송 중으로 표시 (leasedUntil까지)
+    @Modifying
+    @Query("update OutboxEvent e set e.leasedUntil = :leasedUntil where e.id in :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("leasedUntil") LocalDateTime leasedUntil);
+
+    // 전송 실패한 이벤트를 다음 주기에 바로 다시 가져갈 수 있게
+    @Modifying
+    @Query("update OutboxEvent e set e.leasedUntil = null where e.id in :ids and e.sentAt is null")
+    int release(@Param("ids") Collection<Long> ids);
+
+
+    // 합치기용: 아직 전송 시각이 안 된 같은 종류의 이벤트
+    @Query("select e from OutboxEvent e where e.sentAt is null and e.eventType = :eventType"
+            + " and e.aggregateId in :aggregateIds and e.availableAt > :now")
+    List<OutboxEvent> findPending(@Param("eventType") String eventType,
+                                  @Param("aggregateIds") Collection<Long> aggregateIds,
+                                  @Param("now") LocalDateTime now);
+
+    // 대기 중인 이벤트 내용을 최신으로 교체. relay가 이미 보냈거나 전송 중이면 0건
+    @Modifying
+    @Query("update OutboxEvent e set e.payload = :payload, e.contentType = :contentType"
+            + " where e.id = :id and e.sentAt is null and e.leasedUntil is null")
+    int replacePayload(@Param("id") Long id, @Param("payload") byte[] payload, @Param("contentType") String contentType);
+
+    // 아직 안 보낸 이벤트 삭제 (삭제된 todo의 수정 이벤트 등). 전송 중인 것은 그대로 보냄
+    @Modifying
+    @Query("delete from OutboxEvent e where e.sentAt is null and e.leasedUntil is null"
+            + " and e.eventType = :eventType and e.aggregateId in :aggregateIds")
+    int deletePending(@Param("eventType") String eventType, @Param("aggregateIds") Collection<Long> aggregateIds);
+
+
+    @Modifying
+    @Query("update OutboxEvent e set e.sentAt = :sentAt where e.id in :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+
+    // 보낸 지 오래된 이벤트 정리
+    @Modifying
+    @Query("delete from OutboxEvent e where e.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
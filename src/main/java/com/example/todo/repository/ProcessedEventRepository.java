@@ -0,0 +1,22 @@
+package com.example.todo.repository;
+
+import com.example.todo.entity.ProcessedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, Long> {
+
+    // 이미 처리된 id만
+    @Query("select e.eventId from ProcessedEvent e where e.eventId in :eventIds")
+    List<Long> findProcessedIds(@Param("eventIds") Collection<Long> eventIds);
+
+    @Modifying
+    @Query("delete from ProcessedEvent e where e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
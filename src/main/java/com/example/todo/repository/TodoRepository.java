@@ -1,23 +1,66 @@
 package com.example.todo.repository;
 
+import com.example.todo.dto.TodoDto;
 import com.example.todo.entity.Todo;
-import com.example.todo.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Component;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+// 조회 조건은 user 엔티티 대신 user id (todo.user_id 컬럼)로 걸어서
+// 유저를 먼저 조회하지 않아도 쿼리 1번으로 끝나게 함
 public interface TodoRepository extends JpaRepository<Todo,Long> {
 
 
+    // 조회 API용: 엔티티 대신 TodoDto로 바로 조회 (select new)
+    // - user는 join 하지 않고 todo.user_id 컬럼 값만 읽음 (비밀번호 해시 등 유저 컬럼을 안 가져옴)
+    // - 영속성 컨텍스트에 안 올라가서 스냅샷 복사 / dirty checking 비용 없음
+    // 수정/삭제처럼 엔티티가 필요한 곳은 아래 엔티티 조회 메서드 사용
+    String TODO_DTO = "select new com.example.todo.dto.TodoDto(t.id, t.title, t.description, t.completed, t.user.id, t.version)"
+            + " from Todo t";
+
+    @Query(TODO_DTO + " where t.user.id = :userId order by t.id")
+    List<TodoDto> findDtosByUserId(@Param("userId") Long userId);
+
+    @Query(TODO_DTO + " where t.id = :id and t.user.id = :userId")
+    Optional<TodoDto> findDtoByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+
+    // keyset 페이지네이션: cursor(마지막으로 본 id) 다음부터 limit 개
+    // offset 방식과 달리 뒤쪽 페이지로 가도 (user_id, id) 인덱스로 바로 찾아감
+    @Query(TODO_DTO + " where t.user.id = :userId and t.id > :cursor order by t.id")
+    List<TodoDto> findDtoPage(@Param("userId") Long userId, @Param("cursor") Long cursor, Limit limit);
+
+    @Query(TODO_DTO + " where t.user.id = :userId and t.completed = :completed and t.id > :cursor order by t.id")
+    List<TodoDto> findDtoPage(@Param("userId") Long userId, @Param("completed") boolean completed,
+                              @Param("cursor") Long cursor, Limit limit);
+
+
+    // delta sync: 변경 번호가 from ~ to 사이인 todo를 번호 순으로. (user_id, version) 인덱스
+    @Query(TODO_DTO + " where t.user.id = :userId and t.version between :from and :to order by t.version")
+    List<TodoDto> findDtosByVersionBetween(@Param("userId") Long userId, @Param("from") Long from,
+                                           @Param("to") Long to, Limit limit);
+
+
     // fetch join 처리 -> entitygraph 애노테이션
     // 한번에 같이 가져올 엔티티의 필드명 명시 -> attributepath
     @EntityGraph(attributePaths = "user")
-    List<Todo> findByUser(User user);
+    Optional<Todo> findByIdAndUserId(Long id, Long userId);
 
+
+    // 일괄 처리용. 다른 유저의 todo는 조회되지 않음
     @EntityGraph(attributePaths = "user")
-    Optional<Todo> findByIdAndUser(Long id, User user);
+    List<Todo> findByUserIdAndIdIn(Long userId, Collection<Long> ids);
+
+    // 엔티티를 조회하지 않고 delete 한 문장으로 삭제. 삭제된 행 수 반환
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Todo t where t.user.id = :userId and t.id in :ids")
+    int deleteByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
 
 }
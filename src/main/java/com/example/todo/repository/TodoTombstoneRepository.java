@@ -0,0 +1,22 @@
+package com.example.todo.repository;
+
+import com.example.todo.entity.TodoTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TodoTombstoneRepository extends JpaRepository<TodoTombstone, Long> {
+
+    // 변경 번호가 from ~ to 사이에 삭제된 todo. (user_id, version) 인덱스
+    List<TodoTombstone> findByUserIdAndVersionBetweenOrderByVersionAsc(Long userId, long from, long to, Limit limit);
+
+
+    @Modifying
+    @Query("delete from TodoTombstone t where t.deletedAt < :before")
+    int deleteDeletedBefore(@Param("before") LocalDateTime before);
+}
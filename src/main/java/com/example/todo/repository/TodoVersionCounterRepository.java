@@ -0,0 +1,39 @@
+package com.example.todo.repository;
+
+import com.example.todo.entity.TodoVersionCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface TodoVersionCounterRepository extends JpaRepository<TodoVersionCounter, Long> {
+
+    // 변경 번호 count개 예약. update가 행을 잠가서 트랜잭션이 끝날 때까지 같은 유저의 다른 변경은 대기
+    // 카운터 행이 없으면 0 반환
+    @Modifying
+    @Query("update TodoVersionCounter c set c.version = c.version + :count where c.userId = :userId")
+    int increment(@Param("userId") Long userId, @Param("count") long count);
+
+
+    // 카운터 행 생성. 이미 있으면 unique 제약 위반 예외
+    // (save()는 id가 있는 엔티티를 merge 해서 기존 행을 0으로 덮어쓸 수 있어 insert 직접 사용)
+    @Modifying
+    @Query(value = "insert into todo_version_counter (user_id, version, tombstone_floor) values (:userId, 0, 0)",
+            nativeQuery = true)
+    int insert(@Param("userId") Long userId);
+
+
+    @Query("select c.version from TodoVersionCounter c where c.userId = :userId")
+    Optional<Long> findVersion(@Param("userId") Long userId);
+
+
+    // 정리할 tombstone 중 가장 큰 번호를 유저별 floor로 기록
+    @Modifying
+    @Query("update TodoVersionCounter c set c.tombstoneFloor = "
+            + "(select max(t.version) from TodoTombstone t where t.userId = c.userId and t.deletedAt < :before) "
+            + "where exists (select 1 from TodoTombstone t where t.userId = c.userId and t.deletedAt < :before)")
+    int raiseTombstoneFloor(@Param("before") LocalDateTime before);
+}
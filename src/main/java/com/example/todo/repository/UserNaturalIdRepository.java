@@ -0,0 +1,12 @@
+package com.example.todo.repository;
+
+import com.example.todo.entity.User;
+
+import java.util.Optional;
+
+// username(natural id)으로 유저 조회
+// 쿼리 메서드(findByUsername)는 매번 select가 나가서, natural id 조회로 2차 캐시를 타게 함
+public interface UserNaturalIdRepository {
+
+    Optional<User> findByUsername(String username);
+}
@@ -0,0 +1,28 @@
+package com.example.todo.repository;
+
+import com.example.todo.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+// spring data가 UserRepository에 붙여주는 구현 (이름이 인터페이스명 + Impl 이어야 함)
+public class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+
+    // username -> id는 natural id 캐시에서, id -> 엔티티는 엔티티 캐시에서. 둘 다 있으면 DB 조회 없음
+    // spring data 기본 메서드처럼 readOnly 트랜잭션으로 실행 (트랜잭션 / open-in-view 없이 호출돼도 열린 session 사용)
+    // => 캐시에 없어서 조회할 때는 replica로 감
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByUsername(String username) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(username);
+    }
+}
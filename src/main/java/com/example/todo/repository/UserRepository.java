@@ -2,9 +2,23 @@ package com.example.todo.repository;
 
 import com.example.todo.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+// findByUsername은 UserNaturalIdRepository에서 natural id 캐시로 조회
+public interface UserRepository extends JpaRepository<User, Long>, UserNaturalIdRepository {
 
-public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByUsername(String username);
+
+    // 비밀번호 해시 교체 (cost 변경 후 재해시)
+    // 그 사이 비밀번호가 바뀌었으면 덮어쓰지 않도록 기존 해시가 같을 때만 변경
+    // 요청 트랜잭션 밖(해시 스레드)에서 호출되므로 자체 트랜잭션으로 실행
+    // jpql update라서 커밋 시 User 2차 캐시가 통째로 비워짐 (재해시는 cost 변경 후 한 번뿐이라 괜찮음)
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :newPassword where u.id = :id and u.password = :oldPassword")
+    int updatePassword(@Param("id") Long id,
+                       @Param("oldPassword") String oldPassword,
+                       @Param("newPassword") String newPassword);
 }
@@ -0,0 +1,202 @@
+package com.example.todo.search;
+
+import com.example.todo.dto.TodoDto;
+import com.example.todo.dto.TodoSearchPage;
+import com.example.todo.repository.TodoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// h2 프로필용 검색 (h2에는 tsvector가 없음)
+// 유저별로 서버 메모리에 역색인(단어 -> todo 목록)을 만들어두고 검색
+// - 유저가 처음 검색할 때 DB에서 그 유저의 todo를 읽어서 색인
+// - 이후 변경은 커밋 후 색인에 반영
+// 서버 메모리에만 있어서 서버 1대(개발/테스트 환경) 기준
+@Component
+@Profile("h2")
+@RequiredArgsConstructor
+public class InMemoryTodoSearchEngine implements TodoSearchEngine {
+
+    // 제목에 있는 단어가 설명에 있는 단어보다 관련도가 높음 (postgres 쪽 가중치 A/B와 비슷하게)
+    private static final int TITLE_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final TodoRepository todoRepository;
+
+    private final ConcurrentMap<Long, UserIndex> indexes = new ConcurrentHashMap<>();
+
+
+
+    @Override
+    public TodoSearchPage search(Long userId, List<String> terms, int page, int size) {
+        // 처음이면 DB에서 읽어서 색인. 그동안 같은 유저의 변경 반영은 기다림 (computeIfPresent)
+        UserIndex index = indexes.computeIfAbsent(userId, id -> {
+            UserIndex created = new UserIndex();
+            todoRepository.findDtosByUserId(id).forEach(created::put);
+            return created;
+        });
+
+        List<Scored> matches = index.search(terms);
+        // 관련도 높은 순, 같으면 최근(id 큰) 순
+        matches.sort(Comparator.comparingDouble((Scored scored) -> scored.score).reversed()
+                .thenComparing(scored -> scored.todo.getId(), Comparator.reverseOrder()));
+
+        int from = (int) Math.min((long) page * size, matches.size());
+        int to = Math.min(from + size, matches.size());
+
+        List<TodoDto> items = new ArrayList<>(to - from);
+        for(int i = from; i < to; i++) {
+            items.add(matches.get(i).todo);
+        }
+        return new TodoSearchPage(items, page, size, to < matches.size());
+    }
+
+
+
+    @Override
+    public void saved(Collection<TodoDto> todos) {
+        List<TodoDto> copy = List.copyOf(todos);
+        afterCommit(() -> {
+            for(TodoDto todo : copy) {
+                // 아직 색인 안 된 유저는 건너뜀. 처음 검색할 때 DB에서 최신 상태로 읽음
+                indexes.computeIfPresent(todo.getUserId(), (id, index) -> {
+                    index.put(todo);
+                    return index;
+                });
+            }
+        });
+    }
+
+    @Override
+    public void deleted(Long userId, Collection<Long> todoIds) {
+        List<Long> copy = List.copyOf(todoIds);
+        afterCommit(() -> indexes.computeIfPresent(userId, (id, index) -> {
+            copy.forEach(index::remove);
+            return index;
+        }));
+    }
+
+
+    // 롤백된 변경이 색인에 남지 않도록 커밋 후에 반영
+    private void afterCommit(Runnable task) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+
+
+
+    private record Scored(TodoDto todo, double score) {
+    }
+
+
+    // 유저 1명의 역색인
+    private static class UserIndex {
+
+        private final Map<Long, TodoDto> docs = new HashMap<>();
+        // 단어 -> (todo id -> 가중치 합). 정렬된 map이라 prefix 범위 조회 가능
+        private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        // 검색은 동시에 여러 개, 변경은 하나씩
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+        void put(TodoDto todo) {
+            lock.writeLock().lock();
+            try {
+                removeUnlocked(todo.getId());
+                docs.put(todo.getId(), todo);
+
+                Map<String, Integer> weights = new HashMap<>();
+                SearchTerms.tokenize(todo.getTitle()).forEach(term -> weights.merge(term, TITLE_WEIGHT, Integer::sum));
+                SearchTerms.tokenize(todo.getDescription()).forEach(term -> weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+
+                weights.forEach((term, weight) ->
+                        postings.computeIfAbsent(term, key -> new HashMap<>()).put(todo.getId(), weight));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long todoId) {
+            lock.writeLock().lock();
+            try {
+                removeUnlocked(todoId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeUnlocked(Long todoId) {
+            TodoDto old = docs.remove(todoId);
+            if(old == null) {
+                return;
+            }
+
+            Set<String> terms = new HashSet<>(SearchTerms.tokenize(old.getTitle()));
+            terms.addAll(SearchTerms.tokenize(old.getDescription()));
+            for(String term : terms) {
+                Map<Long, Integer> posting = postings.get(term);
+                if(posting != null) {
+                    posting.remove(todoId);
+                    if(posting.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+
+        // 모든 검색어를 (prefix로) 포함하는 todo + 관련도 점수
+        // 점수 = 검색어마다 (일치한 단어의 가중치 합 * idf) 를 더한 값. 흔한 단어일수록 idf가 작음
+        List<Scored> search(List<String> terms) {
+            lock.readLock().lock();
+            try {
+                Map<Long, Double> scores = null;
+
+                for(String term : terms) {
+                    Map<Long, Double> termScores = new HashMap<>();
+                    // term 으로 시작하는 모든 단어
+                    for(Map<Long, Integer> posting : postings.subMap(term, true, term + Character.MAX_VALUE, true).values()) {
+                        double idf = Math.log(1.0 + (double) docs.size() / posting.size());
+                        posting.forEach((todoId, weight) -> termScores.merge(todoId, weight * idf, Double::sum));
+                    }
+
+                    if(scores == null) {
+                        scores = termScores;
+                    } else {
+                        // 모든 검색어를 포함해야 하므로 교집합만 남김
+                        scores.keySet().retainAll(termScores.keySet());
+                        scores.replaceAll((todoId, score) -> score + termScores.get(todoId));
+                    }
+                    if(scores.isEmpty()) {
+                        break;
+                    }
+                }
+
+                List<Scored> result = new ArrayList<>();
+                if(scores != null) {
+                    scores.forEach((todoId, score) -> result.add(new Scored(docs.get(todoId), score)));
+                }
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.todo.search;
+
+import com.example.todo.dto.TodoDto;
+import com.example.todo.dto.TodoSearchPage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// postgres 전문 검색
+// todo 테이블에 제목(가중치 A) + 설명(가중치 B)으로 만든 tsvector 생성 컬럼과 GIN 인덱스를 두고
+// 검색어는 prefix tsquery (단어:*)로 바꿔서 인덱스로 찾은 뒤 ts_rank_cd로 정렬
+// 한국어 형태소 분석기가 기본 제공되지 않아서 'simple' 설정 (소문자화만, 어간 추출 X)
+@Slf4j
+@Component
+@Profile("!h2")
+@RequiredArgsConstructor
+public class PostgresTodoSearchEngine implements TodoSearchEngine {
+
+    // 엔티티에는 매핑하지 않는 컬럼. 컬럼 추가는 테이블 전체를 다시 쓰면서 잠그기 때문에
+    // 앱이 아니라 배포 전에 README의 마이그레이션으로 만듦. 여기선 있는지만 확인
+    private static final String HAS_COLUMN = """
+            SELECT count(*) FROM information_schema.columns
+            WHERE table_name = 'todo' AND column_name = 'search_vector' AND table_schema = current_schema()""";
+
+    // 생성 컬럼과 같은 식
+    private static final String VECTOR_EXPRESSION =
+            "(setweight(to_tsvector('simple', coalesce(t.title, '')), 'A') || "
+                    + "setweight(to_tsvector('simple', coalesce(t.description, '')), 'B'))";
+
+    private static final String SEARCH = """
+            SELECT t.id, t.title, t.description, t.completed, t.user_id, t.version
+            FROM todo t, to_tsquery('simple', :query) q
+            WHERE t.user_id = :userId AND %1$s @@ q
+            ORDER BY ts_rank_cd(%1$s, q) DESC, t.id DESC
+            LIMIT :limit OFFSET :offset""";
+
+    private static final String INDEXED_SEARCH = SEARCH.formatted("t.search_vector");
+    // 마이그레이션 전: 유저의 todo마다 벡터를 계산 (인덱스 없이 user_id로만 좁힘)
+    private static final String UNINDEXED_SEARCH = SEARCH.formatted(VECTOR_EXPRESSION);
+
+    private static final RowMapper<TodoDto> TODO_ROW = (rs, rowNum) -> TodoDto.builder()
+            .id(rs.getLong("id"))
+            .title(rs.getString("title"))
+            .description(rs.getString("description"))
+            .completed(rs.getBoolean("completed"))
+            .userId(rs.getLong("user_id"))
+            .version(rs.getObject("version", Long.class))
+            .build();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // search_vector 컬럼이 있는지 (시작 시 확인)
+    private volatile boolean indexed;
+
+
+    // 하이버네이트가 테이블을 만든 뒤에 실행
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkIndex() {
+        Long count = jdbcTemplate.getJdbcTemplate().queryForObject(HAS_COLUMN, Long.class);
+        indexed = count != null && count > 0;
+        if(indexed) {
+            log.info("todo 검색 인덱스 확인 완료");
+        } else {
+            log.warn("todo.search_vector 컬럼이 없어서 인덱스 없이 검색함 (README의 검색 인덱스 마이그레이션 필요)");
+        }
+    }
+
+
+
+    @Override
+    public TodoSearchPage search(Long userId, List<String> terms, int page, int size) {
+        // 단어:* & 단어:* => 모든 단어를 prefix로 포함
+        // SearchTerms가 글자/숫자만 남겨서 tsquery 문법이 끼어들 수 없음
+        String query = terms.stream()
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", query)
+                .addValue("userId", userId)
+                // 다음 페이지가 있는지 알기 위해 하나 더 조회
+                .addValue("limit", size + 1)
+                .addValue("offset", (long) page * size);
+
+        List<TodoDto> rows = jdbcTemplate.query(indexed ? INDEXED_SEARCH : UNINDEXED_SEARCH, params, TODO_ROW);
+
+        boolean hasNext = rows.size() > size;
+        List<TodoDto> items = hasNext ? rows.subList(0, size) : rows;
+        return new TodoSearchPage(items, page, size, hasNext);
+    }
+}
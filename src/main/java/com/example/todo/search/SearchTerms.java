@@ -0,0 +1,46 @@
+package com.example.todo.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// 검색어 / 문서를 단어 단위로 자르기
+// 글자와 숫자만 남기므로 tsquery 문법 문자(&, |, :, ! 등)가 검색어에 섞여도 안전
+public final class SearchTerms {
+
+    // 검색어 최대 단어 수 (너무 긴 검색어로 비싼 쿼리를 만들지 않게)
+    public static final int MAX_TERMS = 8;
+
+    private SearchTerms() {
+    }
+
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if(text == null) {
+            return terms;
+        }
+
+        for(String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if(!word.isEmpty()) {
+                terms.add(word);
+            }
+        }
+        return terms;
+    }
+
+
+    // 검색어용. 중복 제거 + 최대 MAX_TERMS개
+    public static List<String> query(String text) {
+        List<String> terms = new ArrayList<>();
+        for(String term : tokenize(text)) {
+            if(!terms.contains(term)) {
+                terms.add(term);
+            }
+            if(terms.size() == MAX_TERMS) {
+                break;
+            }
+        }
+        return terms;
+    }
+}
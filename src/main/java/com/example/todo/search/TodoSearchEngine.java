@@ -0,0 +1,26 @@
+package com.example.todo.search;
+
+import com.example.todo.dto.TodoDto;
+import com.example.todo.dto.TodoSearchPage;
+
+import java.util.Collection;
+import java.util.List;
+
+// todo 제목/설명 전문 검색
+// postgres: tsvector + GIN 인덱스 (PostgresTodoSearchEngine)
+// h2 프로필: 서버 메모리의 역색인 (InMemoryTodoSearchEngine)
+public interface TodoSearchEngine {
+
+    // 유저의 todo 중 terms(SearchTerms.query로 자른 단어)를 모두 포함하는 것을 관련도 순으로
+    // 각 단어는 앞부분 일치(prefix)로 찾음 ("tod" => "todo")
+    TodoSearchPage search(Long userId, List<String> terms, int page, int size);
+
+
+    // 색인을 직접 관리하는 구현만 사용 (DB 인덱스를 쓰는 구현은 할 일 없음)
+    // 데이터 변경과 같은 트랜잭션 안에서 호출. 커밋 후 반영은 구현이 처리
+    default void saved(Collection<TodoDto> todos) {
+    }
+
+    default void deleted(Long userId, Collection<Long> todoIds) {
+    }
+}
@@ -9,13 +9,13 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 // JWT를 검사하고 인증 처리를 해주는 필터
 @Component
@@ -40,27 +40,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
            String token = authHeader.substring(7);
 
 
-           // jwt가 블랙리스트에 있는 경우 (로그아웃 해서 유효하지 않은 토큰)
-           if(tokenBlacklistService.isBlacklisted(token)) {
-               // 인증 실패. 유저에게 바로 응답 반환
-               response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-               return;
-           }
-
+           // 토큰 검증 + 내용 꺼내기 (서명 검증은 최대 1번. 이미 검증한 토큰이면 캐시에서 바로)
+           Optional<JwtClaims> claims = jwtTokenProvider.resolve(token);
 
-           // 토큰이 유효한지 검사
-           if(jwtTokenProvider.validateToken(token)) {
+           // 토큰이 유효한 경우
+           if(claims.isPresent()) {
+               JwtClaims verified = claims.get();
 
-               String username = jwtTokenProvider.getUsername(token);
-               String role = jwtTokenProvider.getRole(token);
+               // jwt가 블랙리스트에 있는 경우 (로그아웃 해서 유효하지 않은 토큰)
+               // 대부분은 서버 내 블룸 필터에서 바로 걸러져서 redis까지 가지 않음
+               if(tokenBlacklistService.isBlacklisted(verified.revocationId(token))) {
+                   // 인증 실패. 유저에게 바로 응답 반환
+                   response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                   return;
+               }
 
                // 권한 리스트. role이 하나여도 이런 식으로 전달
-               List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(role));
+               List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(verified.getRole()));
 
                 // spring security에서 사용하는 인증 객체에 로그인 정보 저장
                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                       // spring security의 User 객체. 비밀번호, role
-                       new User(username, "", authorities), // 누구인지
+                       // spring security의 User 객체 + user id. 비밀번호, role
+                       new UserPrincipal(verified.getUserId(), verified.getUsername(), authorities), // 누구인지
                        null, authorities); // 인증 수단(jwt는 null), role
 
                // ip주소, 브라우저 정보 등등의 부가 정보도 같이 기록
@@ -0,0 +1,29 @@
+package com.example.todo.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 서명 검증이 끝난 jwt의 내용
+// 한 번 검증한 뒤에는 이 객체만 돌려써서 같은 토큰을 다시 파싱하지 않음
+@Getter
+@AllArgsConstructor
+public class JwtClaims {
+
+    private final Long userId; // uid 클레임이 없는 예전 토큰이면 null
+    private final String username;
+    private final String role;
+    private final long expiration; // 만료 시각 (epoch ms)
+    private final String tokenId; // jti. 없는 예전 토큰이면 null
+
+
+    // 블랙리스트에 넣고 확인할 때 쓰는 값
+    // jti가 없는 예전 토큰은 토큰 원문 그대로
+    public String revocationId(String token) {
+        return tokenId != null ? tokenId : token;
+    }
+
+    // 만료까지 남은 시간 (ms)
+    public long getRemainingMillis() {
+        return expiration - System.currentTimeMillis();
+    }
+}
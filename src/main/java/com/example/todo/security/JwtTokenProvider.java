@@ -1,15 +1,30 @@
 package com.example.todo.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 // JWT 토큰을 만들고 읽고 검사하는 클래스
 @Component
@@ -22,22 +37,73 @@ public class JwtTokenProvider {
     // secret key를 HMAC용 key 객체로 바꾸기 => 그래야만 암호화 가능
     private Key key;
 
+    // 검증된 claims 캐시 최대 개수
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private long claimsCacheMaxSize = 10_000;
+
+    // 파서는 thread-safe라서 한 번만 만들어서 재사용
+    private JwtParser parser;
+    // 토큰 해시 -> 검증된 claims. 토큰 만료 시각까지만 보관
+    private Cache<String, JwtClaims> verifiedClaims;
+
+    private final MeterRegistry meterRegistry;
+    private Timer parseValid;
+    private Timer parseInvalid;
+    private Counter claimsCacheHit;
+    private Counter claimsCacheMiss;
+
+
+    public JwtTokenProvider(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
 
     // 클래스가 빈으로 등록되고 나서 실행되는 메서드
     // postconstruct는 value, autowired 등의 주입이 다 끝난 뒤 실행
     @PostConstruct
     public void init() {
         this.key =  Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new Expiry<String, JwtClaims>() {
+                    @Override
+                    public long expireAfterCreate(String digest, JwtClaims claims, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, claims.getRemainingMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String digest, JwtClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, JwtClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+
+        // 서명 검증(파싱) 시간. 결과별로 분리
+        this.parseValid = parseTimer("valid");
+        this.parseInvalid = parseTimer("invalid");
+        this.claimsCacheHit = claimsCacheCounter("hit");
+        this.claimsCacheMiss = claimsCacheCounter("miss");
     }
 
 
     // 토큰 생성
-    public String generateToken(String username, String role) {
+    // user id도 같이 담아서 요청마다 users 테이블을 조회하지 않게 함
+    public String generateToken(Long userId, String username, String role) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + EXPIRATION);
 
         return Jwts.builder() // jwt 만들 준비
+                .setId(UUID.randomUUID().toString()) // 토큰 id (jti). 블랙리스트 키로 사용
                 .setSubject(username) // 토큰 주인 설정
+                .claim("uid", userId) // user id 설정
                 .claim("role", role) // role 설정
                 .setIssuedAt(now) // 토큰 발급 시간
                 .setExpiration(expiry) // 토큰 유효 기간
@@ -45,53 +111,90 @@ public class JwtTokenProvider {
                 .signWith(key, SignatureAlgorithm.HS256) 
                 .compact(); // JWT 문자열로 변환
     }
-    
-    
-    // 토큰에서 username 추출
-    public String getUsername(String token) {
-        return Jwts.parserBuilder() // jwt를 파싱할 준비
-                .setSigningKey(key) // 비밀키 넣기
-                .build() // 파서 생성
-                .parseClaimsJws(token) // 토큰 검증 > 데이터 꺼냄
-                .getBody() // 데이터 (claim) 중 실제 내용 가져오기
-                .getSubject(); // 토큰 주인(subject) 꺼내기
-    }
 
-    // 토큰에서 role 추출
-    public String getRole(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("role", String.class); // role 찾아서 꺼내기
+
+
+    // 토큰 검증 + 내용 꺼내기를 한 번에
+    // 검증에 성공한 토큰은 만료될 때까지 캐시해서, 같은 토큰이 다시 오면 서명 검증을 건너뜀
+    // 유효하지 않은 토큰이면 empty
+    public Optional<JwtClaims> resolve(String token) {
+        if(token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        // 토큰 원문 대신 해시를 키로 사용 (메모리 절약 + 토큰 원문을 들고 있지 않음)
+        String digest = digest(token);
+
+        JwtClaims cached = verifiedClaims.getIfPresent(digest);
+        if(cached != null && cached.getRemainingMillis() > 0) {
+            claimsCacheHit.increment();
+            return Optional.of(cached);
+        }
+        claimsCacheMiss.increment();
+
+        long start = System.nanoTime();
+        try {
+            Claims body = parser.parseClaimsJws(token) // 토큰 검증 > 데이터 꺼냄. 실패하면 예외
+                    .getBody();
+
+            JwtClaims claims = new JwtClaims(
+                    body.get("uid", Long.class),
+                    body.getSubject(),
+                    body.get("role", String.class),
+                    body.getExpiration().getTime(),
+                    body.getId());
+
+            parseValid.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            verifiedClaims.put(digest, claims);
+            return Optional.of(claims);
+
+            // 토큰 관련 예외 | 입력 자체가 문제 (토큰이 없는 경우)
+        } catch(JwtException | IllegalArgumentException e) {
+            parseInvalid.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.empty();
+        }
     }
     
     
-    // 토큰 만료시간 추출
+    // 토큰 만료까지 남은 시간 (ms)
     public long getExpiration(String token) {
-        Date exp = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration();
-        
-        return exp.getTime() - System.currentTimeMillis();
+        return resolve(token)
+                .map(claims -> claims.getRemainingMillis())
+                .orElseThrow(() -> new JwtException("유효하지 않은 토큰"));
     }
     
     
     // 토큰 유효성 검사
     public boolean validateToken(String token) {
+        return resolve(token).isPresent();
+    }
+
+
+
+    private Timer parseTimer(String result) {
+        return Timer.builder("jwt.parse")
+                .description("jwt 서명 검증 + claims 파싱 시간")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter claimsCacheCounter(String result) {
+        return Counter.builder("jwt.claims.cache")
+                .description("검증된 claims 캐시 조회 결과")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+
+    private static String digest(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token); // 토큰 검증에 실패하면 예외를 던짐
-            return true;
-            // 토큰 관련 예외 | 입력 자체가 문제 (토큰이 없는 경우)
-        } catch(JwtException | IllegalArgumentException e) {
-            return false;
+            // MessageDigest는 thread-safe가 아니라서 매번 새로 생성
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch(NoSuchAlgorithmException e) {
+            // 모든 jvm이 SHA-256을 지원해야 해서 실제로는 발생하지 않음
+            throw new IllegalStateException(e);
         }
     }
 }
@@ -0,0 +1,162 @@
+package com.example.todo.security;
+
+import com.example.todo.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// bcrypt 해시/검증을 전용 스레드 풀에서 실행
+// bcrypt는 일부러 CPU를 많이 쓰게 만든 해시라, 요청 스레드에서 바로 돌리면
+// 로그인이 몰릴 때 CPU를 다 써서 다른 API(/api/todos)까지 느려짐
+// => 스레드 수와 대기열 크기를 제한하고, 대기열이 가득 차면 바로 429로 거절
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PasswordHasher {
+
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+
+    // 해시 전용 스레드 수. 0이면 CPU 코어 절반 (나머지는 일반 요청 처리용으로 남김)
+    @Value("${auth.password.threads:0}")
+    private int threads;
+
+    // 스레드가 모두 바쁠 때 기다릴 수 있는 최대 요청 수
+    @Value("${auth.password.queue-capacity:100}")
+    private int queueCapacity;
+
+    // 대기 + 해시 시간이 이보다 길어지면 포기하고 429
+    @Value("${auth.password.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer hashTimer;
+    private Timer verifyTimer;
+    private Timer waitTimer;
+    private Counter rejected;
+
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        // CPU만 쓰는 작업이라 가상 스레드 모드에서도 일반(플랫폼) 스레드 사용
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-hasher-");
+        threadFactory.setDaemon(true);
+
+        // 대기열이 가득 차면 AbortPolicy => RejectedExecutionException
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+
+        hashTimer = passwordTimer("hash");
+        verifyTimer = passwordTimer("verify");
+        waitTimer = Timer.builder("auth.password.wait")
+                .description("해시 작업이 대기열에서 기다린 시간")
+                .register(meterRegistry);
+        rejected = Counter.builder("auth.password.rejected")
+                .description("대기열이 가득 차서 거절된 해시 작업 수")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.queue", executor, e -> e.getQueue().size())
+                .description("해시 작업 대기열 크기")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("해시 작업 중인 스레드 수")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+
+
+    // 비밀번호 해시 (회원가입)
+    public String hash(String rawPassword) {
+        return call(hashTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    // 비밀번호 검증 (로그인)
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return call(verifyTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    // 저장된 해시의 cost가 현재 설정보다 낮은지
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+
+    // 새 cost로 다시 해시해서 넘겨줌 (응답을 기다리지 않음)
+    // 바쁠 때는 건너뜀. 다음 로그인 때 다시 시도됨
+    public void rehashAsync(String rawPassword, Consumer<String> onHashed) {
+        try {
+            executor.execute(() -> {
+                try {
+                    onHashed.accept(hashTimer.record(() -> passwordEncoder.encode(rawPassword)));
+                } catch(Exception e) {
+                    log.warn("비밀번호 재해시 실패", e);
+                }
+            });
+        } catch(RejectedExecutionException e) {
+            log.debug("해시 대기열이 가득 차서 재해시 건너뜀");
+        }
+    }
+
+
+
+    private <T> T call(Timer timer, Supplier<T> task) {
+        long submitted = System.nanoTime();
+
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return timer.record(task);
+            });
+        } catch(RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException();
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+
+        } catch(TimeoutException e) {
+            // 아직 대기 중이면 실행되지 않게 취소
+            future.cancel(true);
+            rejected.increment();
+            throw new TooManyRequestsException();
+        } catch(InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("비밀번호 해시 중 인터럽트", e);
+        } catch(ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("비밀번호 해시 실패", e.getCause());
+        }
+    }
+
+    private Timer passwordTimer(String operation) {
+        return Timer.builder("auth.password")
+                .description("bcrypt 비밀번호 해시/검증 시간")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
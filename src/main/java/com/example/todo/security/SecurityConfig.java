@@ -1,6 +1,7 @@
 package com.example.todo.security;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -42,6 +43,8 @@ public class SecurityConfig {
                         // 인증이 필요없는 경로
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/actuator/prometheus").permitAll()
+                        // 그 외 actuator (DLT 재전송 등 운영 도구)는 관리자만
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers(SWAGGER_ACCESSPOINT).permitAll()
                         // 그 외에는 전부 인증된 사용자만 접근 가능
                         .anyRequest().authenticated()
@@ -56,9 +59,10 @@ public class SecurityConfig {
 
 
     // 암호화 도구 등록
+    // strength = bcrypt cost (2^strength 번 반복). 올리면 기존 비밀번호는 다음 로그인 때 재해시됨
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BCryptPasswordEncoder passwordEncoder(@Value("${auth.password.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
     
 }
@@ -0,0 +1,22 @@
+package com.example.todo.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+// 인증된 사용자 정보 + user id
+// jwt에 담긴 id를 그대로 들고 있어서 요청마다 users 테이블을 조회하지 않아도 됨
+@Getter
+public class UserPrincipal extends User {
+
+    // uid 클레임이 없는 예전 토큰이면 null
+    private final Long id;
+
+    public UserPrincipal(Long id, String username, Collection<? extends GrantedAuthority> authorities) {
+        // jwt 인증이라 비밀번호는 비워둠
+        super(username, "", authorities);
+        this.id = id;
+    }
+}
@@ -1,17 +1,24 @@
 package com.example.todo.service;
 
+import com.example.todo.datasource.ReadFromPrimary;
+import com.example.todo.datasource.ReadReplicaRoutingDataSource;
 import com.example.todo.dto.UserDto;
 import com.example.todo.entity.User;
 import com.example.todo.exception.DuplicateUserException;
 import com.example.todo.exception.InvalidPasswordException;
 import com.example.todo.exception.UserNotFoundException;
 import com.example.todo.repository.UserRepository;
+import com.example.todo.security.JwtClaims;
 import com.example.todo.security.JwtTokenProvider;
+import com.example.todo.security.PasswordHasher;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Optional;
+
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -19,10 +26,16 @@ public class AuthService {
 
     private final UserRepository userRepository;
     private final JwtTokenProvider jwtTokenProvider;
-    private final BCryptPasswordEncoder passwordEncoder;
+    // bcrypt 해시/검증은 요청 스레드가 아닌 전용 스레드 풀에서 (바쁘면 429)
+    private final PasswordHasher passwordHasher;
     private final TokenBlacklistService tokenBlacklistService;
 
 
+    // 해시를 기다리는 동안 DB 커넥션을 붙잡고 있지 않도록 트랜잭션 없이 실행
+    // (repository 호출마다 짧은 트랜잭션) => 로그인이 몰려도 커넥션 풀이 바닥나지 않음
+    // 중복 확인은 복제 지연 없이 primary에서 (replica엔 방금 가입한 유저가 아직 없을 수 있음)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @ReadFromPrimary
     public void signUp(UserDto userDto){
         String username = userDto.getUsername();
         // 이미 같은 username이 존재하는지 확인
@@ -31,7 +44,7 @@ public class AuthService {
         }
 
         // 비밀번호 암호화
-        String password = passwordEncoder.encode(userDto.getPassword());
+        String password = passwordHasher.hash(userDto.getPassword());
 
         userRepository.save(User.builder()
                 .username(username)
@@ -41,34 +54,60 @@ public class AuthService {
     }
 
 
-    @Transactional(readOnly = true)
+    // 유저 조회는 2차 캐시 -> 없으면 replica (findByUsername의 readOnly 트랜잭션)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String login(UserDto userDto){
         String username = userDto.getUsername();
         String password = userDto.getPassword();
 
         // 로그인한 사용자가 없는 경우
         User user = userRepository.findByUsername(username)
+                .or(() -> findOnPrimary(username))
                 .orElseThrow(() -> new UserNotFoundException());
 
         // 로그인한 사용자는 있지만 비번이 다른 경우
-        if(!passwordEncoder.matches(password, user.getPassword())) {
+        if(!passwordHasher.matches(password, user.getPassword())) {
             throw new InvalidPasswordException();
         }
 
-        // 로그인 성공한 경우 jwt 토큰 반환. payload => username, role
-        String token = jwtTokenProvider.generateToken(username, user.getRole());
+        // 해시 cost 설정이 올라갔으면 새 cost로 다시 해시해서 저장 (응답은 기다리지 않음)
+        // 평문 비밀번호를 알 수 있는 건 로그인 순간뿐이라 이때 처리
+        if(passwordHasher.needsRehash(user.getPassword())) {
+            Long userId = user.getId();
+            String oldPassword = user.getPassword();
+            passwordHasher.rehashAsync(password,
+                    newPassword -> userRepository.updatePassword(userId, oldPassword, newPassword));
+        }
+
+        // 로그인 성공한 경우 jwt 토큰 반환. payload => user id, username, role
+        String token = jwtTokenProvider.generateToken(user.getId(), username, user.getRole());
 
         return token;
     }
 
 
 
+    // 방금 가입해서 replica에 아직 없는 유저는 primary에서 한 번 더 확인
+    private Optional<User> findOnPrimary(String username) {
+        try {
+            return ReadReplicaRoutingDataSource.onPrimary(() -> userRepository.findByUsername(username));
+        } catch(RuntimeException | Error e) {
+            throw e;
+        } catch(Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+
     @Transactional(readOnly = true)
     public void logout(String header) {
         // jwt 가져오기
         String token = header.replace("Bearer ", "");
-        long ttl = jwtTokenProvider.getExpiration(token);
+        JwtClaims claims = jwtTokenProvider.resolve(token)
+                .orElseThrow(() -> new JwtException("유효하지 않은 토큰"));
 
-        tokenBlacklistService.blacklist(token,ttl);
+        // 토큰 원문 대신 jti로 블랙리스트 등록. 남은 유효 시간만큼만 보관
+        tokenBlacklistService.blacklist(claims.revocationId(token), claims.getRemainingMillis());
     }
 }
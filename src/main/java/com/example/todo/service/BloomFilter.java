@@ -0,0 +1,91 @@
+package com.example.todo.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 문자열용 블룸 필터 (thread-safe)
+// mightContain이 false면 "확실히 없음", true면 "있을 수도 있음" (오탐 확률 = fpp)
+// 삭제는 안 되기 때문에 주기적으로 새로 만들어서 교체해야 함
+public class BloomFilter {
+
+    private final AtomicLongArray words; // 비트 배열 (long 하나에 64비트)
+    private final int bitCount;
+    private final int hashCount;
+
+
+    // expectedInsertions 개를 넣었을 때 오탐 확률이 fpp 정도가 되도록 크기 계산
+    public BloomFilter(int expectedInsertions, double fpp) {
+        int n = Math.max(1, expectedInsertions);
+        double ln2 = Math.log(2);
+
+        long bits = (long) Math.ceil(-n * Math.log(fpp) / (ln2 * ln2));
+        bits = Math.max(64, Math.min(bits, Integer.MAX_VALUE - 64L));
+
+        this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+        this.bitCount = words.length() * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * ln2));
+    }
+
+
+    public void put(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for(int i = 1; i <= hashCount; i++) {
+            setBit(index(h1, h2, i));
+        }
+    }
+
+
+    public boolean mightContain(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for(int i = 1; i <= hashCount; i++) {
+            int index = index(h1, h2, i);
+            if((words.get(index >>> 6) & (1L << (index & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+    // 해시 2개를 조합해서 k개의 위치를 만드는 방식 (double hashing)
+    private int index(int h1, int h2, int i) {
+        int combined = h1 + i * h2;
+        if(combined < 0) {
+            combined = ~combined;
+        }
+        return combined % bitCount;
+    }
+
+    private void setBit(int index) {
+        int word = index >>> 6;
+        long mask = 1L << (index & 63);
+        long old;
+        // 이미 켜져 있으면 바로 끝. 아니면 CAS로 켜기
+        while(((old = words.get(word)) & mask) == 0) {
+            if(words.compareAndSet(word, old, old | mask)) {
+                return;
+            }
+        }
+    }
+
+    // FNV-1a 64bit + 비트 섞기 (splitmix64 finalizer)
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= (hash >>> 33);
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= (hash >>> 33);
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= (hash >>> 33);
+        return hash;
+    }
+}
@@ -1,23 +1,35 @@
 package com.example.todo.service;
 
+import com.example.todo.cache.TodoCacheWriter;
+import com.example.todo.datasource.ReadFromPrimary;
 import com.example.todo.dto.TodoDto;
+import com.example.todo.dto.TodoChanges;
+import com.example.todo.dto.TodoPage;
+import com.example.todo.dto.TodoSearchPage;
 import com.example.todo.entity.Todo;
+import com.example.todo.entity.TodoTombstone;
 import com.example.todo.entity.User;
 import com.example.todo.event.TodoProducer;
 import com.example.todo.exception.TodoNotFoundException;
 import com.example.todo.exception.UserNotFoundException;
 import com.example.todo.repository.TodoRepository;
 import com.example.todo.repository.UserRepository;
+import com.example.todo.search.SearchTerms;
+import com.example.todo.search.TodoSearchEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.actuate.endpoint.SecurityContext;
-import org.springframework.cache.annotation.CacheEvict;
+import com.example.todo.security.UserPrincipal;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,46 +38,131 @@ import java.util.stream.Collectors;
 @Slf4j
 public class TodoService {
 
+    // 페이지 크기 상한
+    public static final int MAX_PAGE_SIZE = 100;
+    // delta sync 한 번에 돌려줄 최대 변경 수
+    public static final int MAX_CHANGES = 500;
+
     private final TodoRepository todoRepository;
     private final TodoProducer todoProducer;
     private final UserRepository userRepository;
+    private final TodoCacheWriter todoCacheWriter;
+    private final TodoVersionService todoVersionService;
+    private final TodoSearchEngine todoSearchEngine;
 
 
     // 메서드 결과 캐시에 저장. 같은 요청 오면 캐시에서 반환. 캐시에 없는 경우 db
     // key 이름 =  메서드이름:user이름 하여 유저별 캐시 관리
+    // 결과가 TTL 없이 캐시에 남으니 replica가 아닌 primary에서 조회 (복제 지연된 목록이 캐시에 남지 않게)
+    @ReadFromPrimary
     @Transactional(readOnly = true)
     @Cacheable(value = "todos",
             key = "#root.methodName + ':' + T(org.springframework.security.core.context.SecurityContextHolder).context.authentication.name")
     public List<TodoDto> getAllTodos() {
         log.info("DB에서 Todos 조회 중");
 
-        User user = getCurrentUser();
+        // 엔티티를 거치지 않고 dto로 바로 조회
+        return todoRepository.findDtosByUserId(getCurrentUserId());
+    }
 
-        return todoRepository.findByUser(user)
-                .stream()
-                .map(todo -> TodoDto.changeEntityToDto(todo))
-                .collect(Collectors.toList());
+
+    // keyset 페이지 조회. 캐시 키에 유저별 세대 번호를 넣어서 변경 시 이전 페이지들이 한번에 무효화됨
+    // 캐시를 채우는 조회라 primary에서
+    @ReadFromPrimary
+    @Transactional(readOnly = true)
+    @Cacheable(value = "todoPages",
+            key = "T(org.springframework.security.core.context.SecurityContextHolder).context.authentication.name"
+                    + " + ':' + @todoCacheWriter.pageGeneration(T(org.springframework.security.core.context.SecurityContextHolder).context.authentication.name)"
+                    + " + ':' + #cursor + ':' + #size + ':' + #completed")
+    public TodoPage getTodoPage(Long cursor, int size, Boolean completed) {
+        log.info("DB에서 Todo 페이지 조회 중");
+
+        Long userId = getCurrentUserId();
+        long after = (cursor == null) ? 0L : cursor;
+        // 다음 페이지가 있는지 알기 위해 하나 더 조회
+        Limit limit = Limit.of(size + 1);
+
+        List<TodoDto> todos = (completed == null)
+                ? todoRepository.findDtoPage(userId, after, limit)
+                : todoRepository.findDtoPage(userId, completed, after, limit);
+
+        boolean hasNext = todos.size() > size;
+        List<TodoDto> items = hasNext ? new ArrayList<>(todos.subList(0, size)) : todos;
+        Long nextCursor = hasNext ? items.get(items.size() - 1).getId() : null;
+
+        return new TodoPage(items, nextCursor, hasNext);
     }
 
 
+    // delta sync: since 이후 생성/수정/삭제된 것만 변경 번호 순으로
+    // 목록 크기와 상관없이 (user_id, version) 인덱스로 변경분만 조회
     @Transactional(readOnly = true)
-    public TodoDto getTodoById(Long id) {
-        User user = getCurrentUser();
+    public TodoChanges getChanges(long since) {
+        Long userId = getCurrentUserId();
+
+        // 이 번호까지는 모두 커밋된 상태. 이후에 커밋되는 변경은 다음 요청에서 받음
+        long upper = todoVersionService.currentVersion(userId);
+
+        // 처음 동기화 / 삭제 기록이 정리된 뒤라 빠진 삭제가 있을 수 있음 / 서버가 모르는 번호 => 전체 목록
+        if(since <= 0 || since > upper || since < todoVersionService.tombstoneFloor(userId)) {
+            List<TodoDto> todos = todoRepository.findDtosByUserId(userId);
+            return new TodoChanges(todos, List.of(), upper, false, true);
+        }
+
+        // 각각 하나 더 조회해서 남은 변경이 있는지 확인
+        Limit limit = Limit.of(MAX_CHANGES + 1);
+        List<TodoDto> changed = todoRepository.findDtosByVersionBetween(userId, since + 1, upper, limit);
+        List<TodoTombstone> deleted = todoVersionService.deletedBetween(userId, since + 1, upper, limit);
+
+        // 두 목록을 변경 번호 순으로 합치면서 최대 MAX_CHANGES개
+        List<TodoDto> changedDtos = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        long version = since;
+        int i = 0;
+        int j = 0;
+        while(changedDtos.size() + deletedIds.size() < MAX_CHANGES && (i < changed.size() || j < deleted.size())) {
+            if(j >= deleted.size() || (i < changed.size() && changed.get(i).getVersion() < deleted.get(j).getVersion())) {
+                TodoDto todo = changed.get(i++);
+                changedDtos.add(todo);
+                version = todo.getVersion();
+            } else {
+                TodoTombstone tombstone = deleted.get(j++);
+                deletedIds.add(tombstone.getTodoId());
+                version = tombstone.getVersion();
+            }
+        }
+
+        boolean hasMore = i < changed.size() || j < deleted.size();
+        // 다 돌려줬으면 upper까지 받은 것 (중간 번호가 비어 있어도 다시 조회하지 않게)
+        return new TodoChanges(changedDtos, deletedIds, hasMore ? version : Math.max(version, upper), hasMore, false);
+    }
+
 
+    // 제목/설명 전문 검색. 현재 유저의 todo만, 관련도 순
+    @Transactional(readOnly = true)
+    public TodoSearchPage searchTodos(String query, int page, int size) {
+        List<String> terms = SearchTerms.query(query);
+        if(terms.isEmpty()) {
+            return new TodoSearchPage(List.of(), page, size, false);
+        }
+        return todoSearchEngine.search(getCurrentUserId(), terms, page, size);
+    }
+
+
+    @Transactional(readOnly = true)
+    public TodoDto getTodoById(Long id) {
         // optional로 반환. 값이 있으면 꺼내주고, 빈 값이면 exception 던지기
-        Todo todo = todoRepository.findByIdAndUser(id, user)
+        return todoRepository.findDtoByIdAndUserId(id, getCurrentUserId())
                 .orElseThrow(() -> new TodoNotFoundException());
-
-        return TodoDto.changeEntityToDto(todo);
     }
 
 
 
-    // 데이터가 변경됐으니 해당 유저의 캐시 데이터 삭제
-    @CacheEvict(value = "todos",
-            key = "'getAllTodos:' + T(org.springframework.security.core.context.SecurityContextHolder).context.authentication.name")
+    // 데이터가 변경됐으니 해당 유저의 캐시된 목록도 반영 (커밋 후 삭제 or 직접 수정)
     public TodoDto createTodo(TodoDto dto) {
-        User user = getCurrentUser();
+        Long userId = getCurrentUserId();
+        // select 없이 id만 가진 프록시. insert 시 user_id로만 쓰임
+        User user = userRepository.getReferenceById(userId);
 
         // 받은 dto로 새로운 entity 객체 생성 => 비영속 상태. jpa의 메서드를 거쳐야 영속상태
         Todo todo = Todo.builder()
@@ -73,6 +170,7 @@ public class TodoService {
                 .description(dto.getDescription())
                 .completed(dto.isCompleted())
                 .user(user)
+                .version(todoVersionService.reserve(userId, 1))
                 .build();
         
         // 실제 저장 후 kafka 메시지 전송
@@ -80,53 +178,164 @@ public class TodoService {
 
         // kafka 이벤트 전송
         todoProducer.sendTodoCreated(saved);
-        
+
+        todoCacheWriter.added(getCurrentUsername(), saved);
+        todoSearchEngine.saved(List.of(saved));
+
         return saved;
     }
 
 
 
-    @CacheEvict(value = "todos",
-            key = "'getAllTodos:' + T(org.springframework.security.core.context.SecurityContextHolder).context.authentication.name")
-    public TodoDto updateTodo(Long id,TodoDto dto) {
-        User user = getCurrentUser();
+    // 일괄 생성. 한 트랜잭션에서 insert를 jdbc batch로 묶어서 보냄 (시퀀스 id)
+    // kafka 이벤트 1개, 캐시 반영 1번
+    public List<TodoDto> createTodos(List<TodoDto> dtos) {
+        Long userId = getCurrentUserId();
+        User user = userRepository.getReferenceById(userId);
+        long version = todoVersionService.reserve(userId, dtos.size());
+
+        List<Todo> todos = new ArrayList<>(dtos.size());
+        for(TodoDto dto : dtos) {
+            todos.add(Todo.builder()
+                    .title(dto.getTitle())
+                    .description(dto.getDescription())
+                    .completed(dto.isCompleted())
+                    .user(user)
+                    .version(version++)
+                    .build());
+        }
 
-        Todo todo = todoRepository.findByIdAndUser(id, user)
+        List<TodoDto> saved = todoRepository.saveAll(todos)
+                .stream()
+                .map(todo -> TodoDto.changeEntityToDto(todo))
+                .collect(Collectors.toList());
+
+        todoProducer.sendTodosCreated(saved);
+        todoCacheWriter.added(getCurrentUsername(), saved);
+        todoSearchEngine.saved(saved);
+
+        return saved;
+    }
+
+
+
+    // 일괄 완료 처리. 하나라도 없는 todo가 있으면 전체 실패 (롤백)
+    // 바뀐 todo들의 update도 커밋 시점에 jdbc batch로 묶여서 나감
+    public List<TodoDto> completeTodos(List<Long> ids) {
+        Long userId = getCurrentUserId();
+        List<Todo> todos = findAllOwned(userId, ids);
+        long version = todoVersionService.reserve(userId, todos.size());
+
+        List<TodoDto> completed = new ArrayList<>(todos.size());
+        for(Todo todo : todos) {
+            todo.setCompleted(true);
+            todo.setVersion(version++);
+            completed.add(TodoDto.changeEntityToDto(todo));
+        }
+
+        todoProducer.sendTodosUpdated(completed);
+        todoCacheWriter.replaced(getCurrentUsername(), completed);
+        todoSearchEngine.saved(completed);
+
+        return completed;
+    }
+
+
+
+    public TodoDto updateTodo(Long id,TodoDto dto) {
+        Long userId = getCurrentUserId();
+        Todo todo = todoRepository.findByIdAndUserId(id, userId)
                 .orElseThrow(() -> new TodoNotFoundException());
 
         // 새로 받은 dto로 기존 엔티티 수정. dirty-checking
         todo.setTitle(dto.getTitle());
         todo.setDescription(dto.getDescription());
         todo.setCompleted(dto.isCompleted());
+        todo.setVersion(todoVersionService.reserve(userId, 1));
 
-        return TodoDto.changeEntityToDto(todo);
+        TodoDto updated = TodoDto.changeEntityToDto(todo);
+        todoProducer.sendTodoUpdated(updated);
+        todoCacheWriter.replaced(getCurrentUsername(), updated);
+        todoSearchEngine.saved(List.of(updated));
+
+        return updated;
     }
 
 
 
-    @CacheEvict(value = "todos",
-            key = "'getAllTodos:' + T(org.springframework.security.core.context.SecurityContextHolder).context.authentication.name")
     public void deleteTodo(Long id) {
-        User user = getCurrentUser();
-
-        Todo todo = todoRepository.findByIdAndUser(id, user)
+        Long userId = getCurrentUserId();
+        Todo todo = todoRepository.findByIdAndUserId(id, userId)
                         .orElseThrow(() -> new TodoNotFoundException());
 
+        // 카운터 행 먼저 잠금 (todo 행은 그 다음. 다른 변경과 같은 순서)
+        long version = todoVersionService.reserve(userId, 1);
         todoRepository.delete(todo);
+        // delta sync 클라이언트에게 삭제를 알리기 위한 기록
+        todoVersionService.recordDeleted(userId, List.of(id), version);
+        todoProducer.sendTodosDeleted(userId, List.of(id));
+        todoCacheWriter.removed(getCurrentUsername(), id);
+        todoSearchEngine.deleted(userId, List.of(id));
+    }
+
+
+
+    // 일괄 삭제. 조회 없이 delete 한 문장으로 처리
+    // 삭제된 수가 요청한 수와 다르면 (없거나 남의 todo) 전체 실패 (롤백)
+    public void deleteTodos(List<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+
+        Long userId = getCurrentUserId();
+        // bulk delete는 바로 실행돼서 todo 행을 잠금 => 그 전에 카운터 행부터 잠가야
+        // 같은 유저의 완료 / 수정 (카운터 먼저, todo update는 커밋 때) 과 서로 기다리는 교착이 안 생김
+        long version = todoVersionService.reserve(userId, uniqueIds.size());
+        int deleted = todoRepository.deleteByUserIdAndIdIn(userId, uniqueIds);
+        if(deleted != uniqueIds.size()) {
+            throw new TodoNotFoundException();
+        }
+        todoVersionService.recordDeleted(userId, uniqueIds, version);
+        todoProducer.sendTodosDeleted(userId, uniqueIds);
+
+        todoCacheWriter.removed(getCurrentUsername(), uniqueIds);
+        todoSearchEngine.deleted(userId, uniqueIds);
+    }
+
+
+
+    // 현재 유저의 todo를 id 목록으로 한 번에 조회. 하나라도 없으면 예외
+    private List<Todo> findAllOwned(Long userId, List<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+
+        List<Todo> todos = todoRepository.findByUserIdAndIdIn(userId, uniqueIds);
+        if(todos.size() != uniqueIds.size()) {
+            throw new TodoNotFoundException();
+        }
+        return todos;
     }
 
 
 
-    // 현재 로그인 한 유저의 entity를 찾아오는 메서드
-    private User getCurrentUser() {
-        String username = SecurityContextHolder // 로그인 정보 전역 저장소
+    // 현재 로그인 한 유저의 id
+    // jwt 필터가 넣어둔 principal에서 꺼내서 DB 조회 없음
+    private Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder // 로그인 정보 전역 저장소
                 .getContext() // 현재 요청의 security context 객체 가져오기
-                .getAuthentication() // 사용자 정보 담고 있는 authentication 객체 가져오기
-                .getName(); // 사용자의 이름 꺼내기
+                .getAuthentication(); // 사용자 정보 담고 있는 authentication 객체 가져오기
+
+        if(authentication.getPrincipal() instanceof UserPrincipal principal && principal.getId() != null) {
+            return principal.getId();
+        }
 
-        User user = userRepository.findByUsername(username)
+        // uid 클레임이 없는 예전 토큰은 username으로 조회
+        User user = userRepository.findByUsername(authentication.getName())
                 .orElseThrow(() -> new UserNotFoundException());
 
-        return user;
+        return user.getId();
+    }
+
+
+    // 현재 로그인 한 유저의 이름
+    private String getCurrentUsername() {
+        return SecurityContextHolder.getContext().getAuthentication().getName();
     }
 }
@@ -0,0 +1,132 @@
+package com.example.todo.service;
+
+import com.example.todo.entity.TodoTombstone;
+import com.example.todo.repository.TodoTombstoneRepository;
+import com.example.todo.repository.TodoVersionCounterRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// delta sync용 유저별 변경 번호 발급 + 삭제 기록(tombstone) 관리
+@Slf4j
+@Service
+@Transactional
+public class TodoVersionService {
+
+    private final TodoVersionCounterRepository counterRepository;
+    private final TodoTombstoneRepository tombstoneRepository;
+    // 카운터 행 생성은 별도 트랜잭션으로 (동시에 만들다 충돌해도 현재 트랜잭션은 살림)
+    private final TransactionTemplate requiresNew;
+
+    // 삭제 기록 보관 기간. 이보다 오래 동기화 안 한 클라이언트는 전체 다시 받음
+    @Value("${todo.tombstone.retention:30d}")
+    private Duration tombstoneRetention;
+
+
+    public TodoVersionService(TodoVersionCounterRepository counterRepository,
+                              TodoTombstoneRepository tombstoneRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.counterRepository = counterRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+
+
+    // 변경 번호 count개를 예약하고 첫 번호를 반환 (first ~ first + count - 1)
+    // 데이터 변경과 같은 트랜잭션에서 호출되어야 함 (카운터 행 잠금이 커밋까지 유지되어야 순서가 보장됨)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long reserve(Long userId, int count) {
+        if(counterRepository.increment(userId, count) == 0) {
+            createCounter(userId);
+            counterRepository.increment(userId, count);
+        }
+
+        long last = counterRepository.findVersion(userId).orElseThrow();
+        return last - count + 1;
+    }
+
+
+    // 삭제된 todo들의 tombstone 기록. 번호는 삭제 전에 reserve로 받아둔 첫 번호부터
+    // (todo 행보다 카운터 행을 먼저 잠가야 수정 / 완료와 잠금 순서가 같아서 교착이 안 생김)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Long userId, Collection<Long> todoIds, long firstVersion) {
+        long version = firstVersion;
+        LocalDateTime now = LocalDateTime.now();
+
+        List<TodoTombstone> tombstones = new ArrayList<>(todoIds.size());
+        for(Long todoId : todoIds) {
+            tombstones.add(TodoTombstone.builder()
+                    .userId(userId)
+                    .todoId(todoId)
+                    .version(version++)
+                    .deletedAt(now)
+                    .build());
+        }
+        tombstoneRepository.saveAll(tombstones);
+    }
+
+
+
+    // 변경 번호가 from ~ to 사이인 삭제 기록
+    @Transactional(readOnly = true)
+    public List<TodoTombstone> deletedBetween(Long userId, long from, long to, Limit limit) {
+        return tombstoneRepository.findByUserIdAndVersionBetweenOrderByVersionAsc(userId, from, to, limit);
+    }
+
+
+    // 현재까지 발급한 마지막 번호 (아직 변경이 없으면 0)
+    // 같은 유저의 변경은 번호 순서대로 커밋되므로, 이 번호 이하의 변경은 모두 커밋된 상태
+    @Transactional(readOnly = true)
+    public long currentVersion(Long userId) {
+        return counterRepository.findVersion(userId).orElse(0L);
+    }
+
+    // 이 번호 이하의 삭제 기록은 정리되어 없을 수 있음
+    @Transactional(readOnly = true)
+    public long tombstoneFloor(Long userId) {
+        return counterRepository.findById(userId)
+                .map(counter -> counter.getTombstoneFloor())
+                .orElse(0L);
+    }
+
+
+
+    // 오래된 tombstone 정리. 정리 전에 유저별 floor를 먼저 올려둠
+    @Scheduled(fixedDelayString = "${todo.tombstone.cleanup-interval-ms:3600000}")
+    public void cleanupTombstones() {
+        LocalDateTime before = LocalDateTime.now().minus(tombstoneRetention);
+
+        counterRepository.raiseTombstoneFloor(before);
+        int deleted = tombstoneRepository.deleteDeletedBefore(before);
+        if(deleted > 0) {
+            log.info("tombstone 정리: {}건 삭제", deleted);
+        }
+    }
+
+
+
+    private void createCounter(Long userId) {
+        try {
+            requiresNew.executeWithoutResult(status -> counterRepository.insert(userId));
+        } catch(DataIntegrityViolationException e) {
+            // 다른 요청이 먼저 만든 경우. 그대로 사용
+            log.debug("todo 버전 카운터 이미 존재: userId={}", userId);
+        }
+    }
+}
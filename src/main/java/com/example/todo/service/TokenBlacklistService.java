@@ -1,29 +1,170 @@
 package com.example.todo.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
 
 // 로그아웃 된 토큰은 블랙리스트에 넣고 들어오지 못하게 하기 위함
+// 블랙리스트는 redis에 있고, 서버마다 블룸 필터를 하나씩 들고 있어서
+// 필터에 없는 토큰(= 대부분의 요청)은 redis에 물어보지 않고 바로 통과
+@Slf4j
 @Service
 @RequiredArgsConstructor
-public class TokenBlacklistService {
+public class TokenBlacklistService implements MessageListener {
+
+    private static final String PREFIX = "BL:";
 
     private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    // 로그아웃된 토큰 id를 다른 서버에 알리는 채널
+    @Value("${token.blacklist.channel:token:revoked}")
+    private String channel;
+
+    @Value("${token.blacklist.bloom.expected-insertions:100000}")
+    private int expectedInsertions;
+
+    @Value("${token.blacklist.bloom.fpp:0.001}")
+    private double fpp;
+
+    // 아직 만들어지지 않았으면 null => 모든 요청을 redis에 확인
+    private volatile BloomFilter filter;
+    // 재구성하는 동안 들어온 토큰 id도 새 필터에 넣기 위함
+    private volatile BloomFilter rebuilding;
+    // 필터 교체와 토큰 id 추가가 겹치지 않게 (교체 직전에 예전 필터에만 들어가서 빠지는 것 방지)
+    private final Object filterLock = new Object();
+
+    // 블랙리스트 확인 시간. 블룸 필터에서 끝났는지 / redis까지 갔는지 구분
+    private Timer bloomLookup;
+    private Timer redisLookup;
+
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+
+        bloomLookup = lookupTimer("bloom");
+        redisLookup = lookupTimer("redis");
+    }
 
 
     // logout시 blacklist 토큰으로 저장
-    public void blacklist(String token, long ttl) {
+    // tokenId = jwt의 jti (jti가 없는 예전 토큰은 토큰 원문)
+    public void blacklist(String tokenId, long ttl) {
         redisTemplate.opsForValue()
                 // 토큰 이름, 값, 데이터 만료 시간 설정
-                .set("BL:" + token, "logout", ttl, TimeUnit.MILLISECONDS);
+                .set(PREFIX + tokenId, "logout", ttl, TimeUnit.MILLISECONDS);
+
+        // 이 서버 필터에 바로 반영 + 다른 서버에 알림
+        addToFilters(tokenId);
+        redisTemplate.convertAndSend(channel, tokenId);
     }
 
     // 토큰이 블랙리스트에 있는지 확인
-    public boolean isBlacklisted(String token) {
-        return redisTemplate.hasKey("BL:" + token);
+    public boolean isBlacklisted(String tokenId) {
+        long start = System.nanoTime();
+        BloomFilter current = filter;
+
+        // 필터에 없으면 확실히 블랙리스트 아님 -> redis 왕복 생략
+        if(current != null && !current.mightContain(tokenId)) {
+            bloomLookup.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return false;
+        }
+        // 필터에 있다고 나온 경우(진짜 or 오탐)만 redis로 확인
+        boolean blacklisted = Boolean.TRUE.equals(redisTemplate.hasKey(PREFIX + tokenId));
+        redisLookup.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return blacklisted;
+    }
+
+
+
+    // 다른 서버에서 로그아웃된 토큰 id 수신
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        addToFilters(new String(message.getBody(), StandardCharsets.UTF_8));
     }
 
+
+
+    // 서버 시작 시 + 주기적으로 redis의 블랙리스트 키로 필터를 새로 만듦
+    // 블룸 필터는 삭제가 안 되기 때문에 만료된 토큰을 정리하려면 다시 만들어야 함
+    // pub/sub 메시지를 놓친 경우도 여기서 복구됨
+    @Scheduled(initialDelay = 0, fixedDelayString = "${token.blacklist.bloom.rebuild-interval-ms:3600000}")
+    public void rebuildFilter() {
+        BloomFilter next = new BloomFilter(expectedInsertions, fpp);
+        synchronized(filterLock) {
+            rebuilding = next;
+        }
+
+        try {
+            ScanOptions options = ScanOptions.scanOptions()
+                    .match(PREFIX + "*")
+                    .count(1000)
+                    .build();
+
+            int count = 0;
+            try(Cursor<String> cursor = redisTemplate.scan(options)) {
+                while(cursor.hasNext()) {
+                    next.put(cursor.next().substring(PREFIX.length()));
+                    count++;
+                }
+            }
+
+            synchronized(filterLock) {
+                filter = next;
+                rebuilding = null;
+            }
+            log.info("블랙리스트 블룸 필터 재구성 완료: {}개", count);
+
+        } catch(Exception e) {
+            // 실패하면 기존 필터 유지 (처음이면 null이라 redis로 확인)
+            log.warn("블랙리스트 블룸 필터 재구성 실패", e);
+        } finally {
+            synchronized(filterLock) {
+                rebuilding = null;
+            }
+        }
+    }
+
+
+
+    private Timer lookupTimer(String source) {
+        return Timer.builder("token.blacklist.lookup")
+                .description("토큰 블랙리스트 확인 시간")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+
+    // 교체 중이 아니면 현재 필터와 재구성 중인 필터 둘 다에 넣음 => 교체 후 필터에도 반드시 들어 있음
+    // (추가는 로그아웃 / pub/sub 메시지 때만이라 lock 비용은 조회 경로에 영향 없음)
+    private void addToFilters(String tokenId) {
+        synchronized(filterLock) {
+            BloomFilter current = filter;
+            if(current != null) {
+                current.put(tokenId);
+            }
+
+            BloomFilter next = rebuilding;
+            if(next != null) {
+                next.put(tokenId);
+            }
+        }
+    }
 }
@@ -0,0 +1,40 @@
+package com.example.todo.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AuditPartitionManagerTest {
+
+    @Test
+    void partitionName_and_monthOf_roundtrip() {
+        YearMonth month = YearMonth.of(2026, 3);
+
+        assertThat(AuditPartitionManager.partitionName(month)).isEqualTo("audit_log_p2026_03");
+        assertThat(AuditPartitionManager.monthOf("audit_log_p2026_03")).isEqualTo(month);
+        // default 파티션이나 다른 이름은 월 파티션이 아님
+        assertThat(AuditPartitionManager.monthOf("audit_log_default")).isNull();
+        assertThat(AuditPartitionManager.monthOf("audit_log_p2026_3")).isNull();
+    }
+
+
+    // 이번 달 제외 retentionMonths개월은 남기고 그보다 오래된 것만
+    @Test
+    void expired_keeps_retention_months() {
+        List<String> partitions = List.of(
+                "audit_log_default",
+                "audit_log_p2025_12",
+                "audit_log_p2026_03",
+                "audit_log_p2026_04",
+                "audit_log_p2026_10",
+                "audit_log_p2026_12");
+
+        List<String> expired = AuditPartitionManager.expired(partitions, YearMonth.of(2026, 10), 6);
+
+        // 2026-10 기준 6개월 => 2026-04부터 보관
+        assertThat(expired).containsExactly("audit_log_p2025_12", "audit_log_p2026_03");
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.todo.cache;
+
+import com.example.todo.dto.TodoDto;
+import com.example.todo.dto.TodoPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CompactCacheSerializerTest {
+
+    private final RedisSerializer<Object> jdk = new JdkSerializationRedisSerializer();
+    private final CompactCacheSerializer serializer = new CompactCacheSerializer(jdk, 1024);
+
+
+    @Test
+    void todo_list_roundtrip_smaller_than_jdk() {
+        List<TodoDto> todos = todos(20);
+
+        byte[] bytes = serializer.serialize(todos);
+
+        assertThat(bytes[3]).isEqualTo(CompactCacheSerializer.TYPE_TODO_LIST);
+        assertThat(bytes.length).isLessThan(jdk.serialize(todos).length / 2);
+        assertThat((List<?>) serializer.deserialize(bytes))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(todos);
+    }
+
+
+    @Test
+    void todo_page_roundtrip() {
+        TodoPage page = new TodoPage(todos(3), 3L, true);
+        TodoPage last = new TodoPage(List.of(), null, false);
+
+        assertThat(serializer.deserialize(serializer.serialize(page))).usingRecursiveComparison().isEqualTo(page);
+        assertThat(serializer.deserialize(serializer.serialize(last))).usingRecursiveComparison().isEqualTo(last);
+    }
+
+
+    // 기준 크기 이상이면 압축
+    @Test
+    void large_value_is_compressed() {
+        List<TodoDto> todos = todos(500);
+
+        byte[] bytes = serializer.serialize(todos);
+
+        assertThat(bytes[2] & CompactCacheSerializer.GZIP).isNotZero();
+        assertThat(bytes.length).isLessThan(new CompactCacheSerializer(jdk, 0).serialize(todos).length);
+        assertThat((List<?>) serializer.deserialize(bytes)).hasSize(500);
+    }
+
+
+    // 목록/페이지가 아닌 값은 jdk로, 배포 전에 jdk로 저장된 값도 그대로 읽음
+    @Test
+    void other_values_and_legacy_entries_use_jdk() {
+        Map<String, Long> other = Map.of("a", 1L);
+        byte[] bytes = serializer.serialize(other);
+        assertThat(bytes[3]).isEqualTo(CompactCacheSerializer.TYPE_JDK);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(other);
+
+        List<TodoDto> todos = new ArrayList<>(todos(2));
+        assertThat((List<?>) serializer.deserialize(jdk.serialize(todos)))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(todos);
+    }
+
+
+    @Test
+    void rejects_unknown_version() {
+        byte[] bytes = serializer.serialize(todos(1));
+        bytes[1] = CompactCacheSerializer.VERSION + 1;
+
+        assertThatThrownBy(() -> serializer.deserialize(bytes)).isInstanceOf(SerializationException.class);
+    }
+
+
+
+    private static List<TodoDto> todos(int count) {
+        List<TodoDto> todos = new ArrayList<>(count);
+        for(int i = 1; i <= count; i++) {
+            todos.add(TodoDto.builder()
+                    .id((long) i).title("할 일 " + i).description("설명 " + i)
+                    .completed(i % 2 == 0).userId(7L).version((long) i)
+                    .build());
+        }
+        return todos;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.todo.controller;
 
+import com.example.todo.dto.TodoBatchRequest;
 import com.example.todo.dto.TodoDto;
+import com.example.todo.dto.TodoIdsRequest;
 import com.example.todo.dto.UserDto;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -18,6 +20,16 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -150,6 +162,70 @@ public class TodoControllerTest {
 
 
 
+    // size 파라미터로 페이지 조회 -> cursor로 다음 페이지 이어서 조회
+    @Test
+    void getTodoPage_keyset_pagination() throws Exception {
+        for(int i = 0; i < 3; i++) {
+            TodoDto dto = TodoDto.builder()
+                    .title("page " + i)
+                    .completed(false)
+                    .build();
+
+            mockMvc.perform(post("/api/todos")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(dto)))
+                    .andExpect(status().isCreated());
+        }
+
+        // 첫 페이지
+        MvcResult result = mockMvc.perform(get("/api/todos")
+                        .param("size", "2")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items.length()").value(2))
+                .andExpect(jsonPath("$.data.hasNext").value(true))
+                .andReturn();
+
+        long cursor = objectMapper.readTree(result.getResponse().getContentAsString())
+                .get("data").get("nextCursor").asLong();
+
+        // 다음 페이지는 cursor 이후 id만
+        mockMvc.perform(get("/api/todos")
+                        .param("size", "2")
+                        .param("cursor", String.valueOf(cursor))
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items[0].id").value(Matchers.greaterThan((int) cursor)));
+    }
+
+
+
+    // completed 필터
+    @Test
+    void getTodoPage_completed_filter() throws Exception {
+        TodoDto dto = TodoDto.builder()
+                .title("done")
+                .completed(true)
+                .build();
+
+        mockMvc.perform(post("/api/todos")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/todos")
+                        .param("size", "100")
+                        .param("completed", "true")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items[*].completed", Matchers.everyItem(Matchers.is(true))));
+    }
+
+
+
+
     // 존재하지 않는 id 조회
     @Test
     void getTodoById_fail_notFound() throws Exception {
@@ -237,4 +313,179 @@ public class TodoControllerTest {
     }
 
 
+    // 일괄 생성 -> 일괄 완료 -> 일괄 삭제
+    @Test
+    void batch_create_complete_delete() throws Exception {
+        List<TodoDto> todos = List.of(
+                TodoDto.builder().title("batch1").build(),
+                TodoDto.builder().title("batch2").build(),
+                TodoDto.builder().title("batch3").build());
+
+        MvcResult result = mockMvc.perform(post("/api/todos/batch")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TodoBatchRequest(todos))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.length()").value(3))
+                .andReturn();
+
+        List<Long> ids = new ArrayList<>();
+        objectMapper.readTree(result.getResponse().getContentAsString()).get("data")
+                .forEach(todo -> ids.add(todo.get("id").asLong()));
+
+        mockMvc.perform(post("/api/todos/batch/complete")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TodoIdsRequest(ids))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[*].completed", Matchers.everyItem(Matchers.is(true))));
+
+        mockMvc.perform(post("/api/todos/batch/delete")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TodoIdsRequest(ids))))
+                .andExpect(status().isNoContent());
+
+        // 이미 삭제됐으니 다시 삭제하면 404
+        mockMvc.perform(post("/api/todos/batch/delete")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TodoIdsRequest(ids))))
+                .andExpect(status().isNotFound());
+    }
+
+
+
+    @Test
+    void batch_create_fail_validation() throws Exception {
+        List<TodoDto> todos = List.of(TodoDto.builder().title("ok").build(), TodoDto.builder().title("").build());
+
+        mockMvc.perform(post("/api/todos/batch")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TodoBatchRequest(todos))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.data['todos[1].title']").value("제목은 비워둘 수 없습니다."));
+    }
+
+
+    // 같은 유저의 일괄 삭제와 일괄 완료가 동시에 => 둘 다 카운터 행을 먼저 잠가서 교착 없음
+    // 삭제는 항상 성공. 완료는 삭제보다 늦으면 실패할 수 있지만 교착(40P01)으로 실패하면 안 됨
+    @Test
+    void batch_delete_and_complete_concurrently_no_deadlock() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for(int round = 0; round < 20; round++) {
+                List<Long> ids = List.of(createTodo("race " + round + "a"), createTodo("race " + round + "b"));
+                String body = objectMapper.writeValueAsString(new TodoIdsRequest(ids));
+
+                CountDownLatch start = new CountDownLatch(1);
+                Future<Integer> complete = executor.submit(() -> batchStatus(start, "/api/todos/batch/complete", body));
+                Future<Integer> delete = executor.submit(() -> batchStatus(start, "/api/todos/batch/delete", body));
+                start.countDown();
+
+                Assertions.assertThat(delete.get(10, TimeUnit.SECONDS)).isEqualTo(204);
+                try {
+                    complete.get(10, TimeUnit.SECONDS);
+                } catch(ExecutionException e) {
+                    Assertions.assertThat(isDeadlock(e)).as("교착으로 실패: %s", e.getCause()).isFalse();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    // delta sync: since 이후 생성/삭제된 것만
+    @Test
+    void getChanges_returns_only_delta() throws Exception {
+        Long first = createTodo("sync first");
+
+        // 처음 동기화 => 전체 목록
+        MvcResult result = mockMvc.perform(get("/api/todos/changes")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.reset").value(true))
+                .andReturn();
+        long version = objectMapper.readTree(result.getResponse().getContentAsString())
+                .get("data").get("version").asLong();
+
+        Long second = createTodo("sync second");
+        mockMvc.perform(delete("/api/todos/" + first)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/todos/changes")
+                        .param("since", String.valueOf(version))
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.reset").value(false))
+                .andExpect(jsonPath("$.data.changed.length()").value(1))
+                .andExpect(jsonPath("$.data.changed[0].id").value(second))
+                .andExpect(jsonPath("$.data.deleted[0]").value(first))
+                .andExpect(jsonPath("$.data.version").value(Matchers.greaterThan((int) version)));
+    }
+
+
+
+    // 검색: 단어 앞부분만으로도 찾고, 제목에 있는 쪽이 먼저
+    @Test
+    void searchTodos_prefix_and_rank() throws Exception {
+        String word = "srch" + System.nanoTime();
+        Long inDescription = createTodo("plain", word + " in description");
+        Long inTitle = createTodo(word + " title", "other");
+
+        mockMvc.perform(get("/api/todos/search")
+                        .param("q", word.substring(0, word.length() - 3))
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items.length()").value(2))
+                .andExpect(jsonPath("$.data.items[0].id").value(inTitle))
+                .andExpect(jsonPath("$.data.items[1].id").value(inDescription));
+    }
+
+
+    private int batchStatus(CountDownLatch start, String url, String body) throws Exception {
+        start.await();
+        return mockMvc.perform(post(url)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andReturn().getResponse().getStatus();
+    }
+
+    // postgres deadlock_detected
+    private static boolean isDeadlock(Throwable e) {
+        for(Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if(cause instanceof SQLException sql && "40P01".equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private Long createTodo(String title) throws Exception {
+        return createTodo(title, null);
+    }
+
+    private Long createTodo(String title, String description) throws Exception {
+        TodoDto dto = TodoDto.builder()
+                .title(title)
+                .description(description)
+                .completed(false)
+                .build();
+
+        MvcResult result = mockMvc.perform(post("/api/todos")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("data").get("id").asLong();
+    }
+
+
 }
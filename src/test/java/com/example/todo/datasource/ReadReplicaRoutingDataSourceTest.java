@@ -0,0 +1,157 @@
+package com.example.todo.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 메모리 db 2개(primary, replica)로 라우팅 확인
+// 각 db의 node 테이블에 자기 이름을 넣어두고, 조회 결과로 어느 쪽에 연결됐는지 봄
+public class ReadReplicaRoutingDataSourceTest {
+
+    private ReplicaDataSource replica;
+    private ReadReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = embedded("primary");
+        replica = new ReplicaDataSource(embedded("replica"));
+
+        routingDataSource = new ReadReplicaRoutingDataSource(primary, List.of(replica),
+                Duration.ofSeconds(5), Duration.ZERO, new SimpleMeterRegistry());
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+
+
+    @Test
+    void readOnly_goes_to_replica_and_others_to_primary() {
+        assertThat(readOnly.execute(status -> node())).isEqualTo("replica");
+        assertThat(readWrite.execute(status -> node())).isEqualTo("primary");
+        // 트랜잭션 밖
+        assertThat(node()).isEqualTo("primary");
+    }
+
+
+    @Test
+    void read_your_writes_only_for_the_writer() {
+        login("writer");
+        readWrite.executeWithoutResult(status -> node());
+        assertThat(readOnly.execute(status -> node())).isEqualTo("primary");
+
+        login("other");
+        assertThat(readOnly.execute(status -> node())).isEqualTo("replica");
+    }
+
+
+    // 창이 max-lag보다 짧게 설정돼도 max-lag만큼은 primary에서 읽음
+    @Test
+    void read_your_writes_window_is_at_least_max_lag() throws InterruptedException {
+        routingDataSource = new ReadReplicaRoutingDataSource(embedded("primary"), List.of(replica),
+                Duration.ofMillis(1), Duration.ofSeconds(5), new SimpleMeterRegistry());
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        login("writer");
+        readWrite.executeWithoutResult(status -> node());
+        Thread.sleep(20);
+
+        assertThat(readOnly.execute(status -> node())).isEqualTo("primary");
+    }
+
+
+    // 캐시를 채우는 조회 등은 readOnly여도 primary
+    @Test
+    void onPrimary_pins_readOnly_to_primary() throws Throwable {
+        assertThat(ReadReplicaRoutingDataSource.onPrimary(() -> readOnly.execute(status -> node()))).isEqualTo("primary");
+        assertThat(readOnly.execute(status -> node())).isEqualTo("replica");
+    }
+
+
+    @Test
+    void failover_to_primary_until_replica_recovers() {
+        replica.down = true;
+        assertThat(readOnly.execute(status -> node())).isEqualTo("primary");
+
+        // 상태 확인 전까지는 다시 시도하지 않음
+        replica.down = false;
+        assertThat(readOnly.execute(status -> node())).isEqualTo("primary");
+
+        routingDataSource.checkReplicas();
+        assertThat(readOnly.execute(status -> node())).isEqualTo("replica");
+    }
+
+
+
+    private String node() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static void login(String username) {
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private static DataSource embedded(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + "_routing;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists node (name varchar(20))");
+        jdbcTemplate.update("delete from node");
+        jdbcTemplate.update("insert into node values (?)", name);
+        return dataSource;
+    }
+
+
+    // 연결 실패를 흉내 낼 수 있는 replica
+    private static class ReplicaDataSource extends DelegatingDataSource {
+        private volatile boolean down;
+
+        private ReplicaDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if(down) {
+                throw new SQLException("replica down");
+            }
+            return super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.todo.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ObjectStreamClass;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TodoDtoTest {
+
+    // redis todos 캐시에는 jdk 직렬화된 예전 목록이 남아 있을 수 있음 (TTL 없음)
+    // serialVersionUID가 바뀌면 그 목록을 읽을 때 전부 실패하므로 기존 값 유지 확인
+    @Test
+    void serialVersionUID_matches_previously_cached_class() {
+        assertThat(ObjectStreamClass.lookup(TodoDto.class).getSerialVersionUID())
+                .isEqualTo(-5522650527628095975L);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.todo.event;
+
+import com.example.todo.dto.TodoDto;
+import com.example.todo.entity.AuditLog;
+import com.example.todo.event.codec.TodoEventCodec;
+import com.example.todo.event.codec.TodoEventCodecs;
+import com.example.todo.repository.AuditLogRepository;
+import com.example.todo.repository.ProcessedEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 같은 이벤트가 다시 들어와도 감사 로그는 한 번만 저장되는지
+@SpringBootTest
+public class AuditLogWriterTest {
+
+    @Autowired
+    private AuditLogWriter auditLogWriter;
+
+    @Autowired
+    private TodoConsumer todoConsumer;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private ProcessedEventRepository processedEventRepository;
+
+    @Autowired
+    private TodoEventCodecs codecs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+
+
+    // 같은 eventId로 두 번 => 두 번째는 건너뛰고 중복 카운터 증가
+    @Test
+    void write_skips_already_processed_event() {
+        long userId = uniqueId();
+        long eventId = uniqueId();
+        double duplicatesBefore = duplicates();
+
+        int first = auditLogWriter.write(List.of(event(eventId, userId)));
+        int second = auditLogWriter.write(List.of(event(eventId, userId)));
+
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isZero();
+        assertThat(auditLogsOf(userId)).hasSize(1);
+        assertThat(duplicates() - duplicatesBefore).isEqualTo(1);
+    }
+
+
+    // 한 번에 같은 eventId가 두 번 들어와도 하나만
+    @Test
+    void write_skips_duplicate_in_same_batch() {
+        long userId = uniqueId();
+        long eventId = uniqueId();
+
+        int saved = auditLogWriter.write(List.of(event(eventId, userId), event(eventId, userId)));
+
+        assertThat(saved).isEqualTo(1);
+        assertThat(auditLogsOf(userId)).hasSize(1);
+    }
+
+
+
+    // 배치 중간에 형식이 잘못된 메시지 => 앞의 것까지 저장하고 그 위치에서 실패
+    // 다시 받으면 앞의 것은 중복으로 걸러짐
+    @Test
+    void batch_saves_prefix_before_malformed_record() {
+        long userId = uniqueId();
+        long goodId = uniqueId();
+        long badId = uniqueId();
+        String key = String.valueOf(userId);
+
+        List<ConsumerRecord<String, byte[]>> records = List.of(
+                record(0, key, goodId, codecs.current().contentType(), payload(userId)),
+                record(1, key, badId, "application/unknown", new byte[]{1, 2, 3}));
+
+        assertThatThrownBy(() -> todoConsumer.handleTodoCreatedBatch(records))
+                .isInstanceOf(BatchListenerFailedException.class)
+                .satisfies(e -> assertThat(((BatchListenerFailedException) e).getIndex()).isEqualTo(1));
+
+        assertThat(auditLogsOf(userId)).hasSize(1);
+        assertThat(processedEventRepository.findProcessedIds(List.of(goodId, badId))).containsExactly(goodId);
+
+        // 실패한 위치부터 다시 받은 것처럼 (앞의 것 포함) 한 번 더 => 새로 저장되는 것 없음
+        double duplicatesBefore = duplicates();
+        assertThatThrownBy(() -> todoConsumer.handleTodoCreatedBatch(records))
+                .isInstanceOf(BatchListenerFailedException.class);
+        assertThat(auditLogsOf(userId)).hasSize(1);
+        assertThat(duplicates() - duplicatesBefore).isEqualTo(1);
+    }
+
+
+
+    private AuditLogWriter.Event event(long eventId, long userId) {
+        return new AuditLogWriter.Event(eventId, List.of(AuditLog.builder()
+                .eventType(TodoProducer.TODO_CREATED)
+                .userId(userId)
+                .data("{}")
+                .createdAt(LocalDateTime.now())
+                .build()));
+    }
+
+
+    private byte[] payload(long userId) {
+        TodoEventCodec codec = codecs.current();
+        return codec.encode(List.of(TodoDto.builder().id(1L).title("audit").userId(userId).build()));
+    }
+
+
+    private ConsumerRecord<String, byte[]> record(long offset, String key, long eventId, String contentType, byte[] value) {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("todo-created", 0, offset, key, value);
+        record.headers().add(OutboxRelay.EVENT_TYPE_HEADER, TodoProducer.TODO_CREATED.getBytes(StandardCharsets.UTF_8));
+        record.headers().add(OutboxRelay.EVENT_ID_HEADER, String.valueOf(eventId).getBytes(StandardCharsets.UTF_8));
+        record.headers().add(OutboxRelay.CONTENT_TYPE_HEADER, contentType.getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+
+    private List<AuditLog> auditLogsOf(long userId) {
+        return auditLogRepository.findAll().stream()
+                .filter(log -> log.getUserId() != null && log.getUserId() == userId)
+                .toList();
+    }
+
+
+    private double duplicates() {
+        return meterRegistry.get("kafka.consumer.duplicates").counter().count();
+    }
+
+
+    // 테스트 db를 같이 쓰는 다른 테스트 / 이전 실행과 겹치지 않는 id
+    private static long uniqueId() {
+        return System.nanoTime();
+    }
+}
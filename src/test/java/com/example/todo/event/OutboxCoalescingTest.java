@@ -0,0 +1,242 @@
+package com.example.todo.event;
+
+import com.example.todo.dto.TodoDto;
+import com.example.todo.dto.UserDto;
+import com.example.todo.entity.OutboxEvent;
+import com.example.todo.event.codec.TodoEventCodecs;
+import com.example.todo.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 수정 이벤트 합치기 (TodoProducer) 를 outbox 행으로 확인
+// relay가 테스트 도중 행을 가져가지 않도록 시작할 때 한 번만 돌게 함
+@SpringBootTest(properties = "outbox.relay.interval-ms=3600000")
+@AutoConfigureMockMvc
+public class OutboxCoalescingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private TodoEventCodecs codecs;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String token;
+
+
+
+    @BeforeEach
+    void setUp_getToken() throws Exception {
+        UserDto user = new UserDto("testUser", "test1234");
+
+        mockMvc.perform(post("/api/auth/signup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(user)));
+
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        token = objectMapper.readTree(result.getResponse().getContentAsString()).get("data").get("accessToken").asText();
+    }
+
+
+
+    // 짧은 시간에 두 번 수정 => 수정 이벤트는 하나, 내용은 마지막 수정
+    @Test
+    void updates_within_window_coalesce_into_one_row() throws Exception {
+        Long id = createTodo("coalesce");
+
+        updateTodo(id, "first update");
+        updateTodo(id, "second update");
+
+        List<OutboxEvent> updates = rows(TodoProducer.TODO_UPDATED, id);
+        assertThat(updates).hasSize(1);
+        assertThat(titleOf(updates.get(0))).isEqualTo("second update");
+    }
+
+
+
+    // 수정 후 바로 삭제 => 대기 중인 수정 이벤트는 지워지고 삭제 이벤트만 남음
+    @Test
+    void delete_drops_pending_update() throws Exception {
+        Long id = createTodo("update then delete");
+
+        updateTodo(id, "updated");
+        mockMvc.perform(delete("/api/todos/" + id)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        assertThat(rows(TodoProducer.TODO_UPDATED, id)).isEmpty();
+        assertThat(rows(TodoProducer.TODO_DELETED, id)).hasSize(1);
+    }
+
+
+
+    // relay가 이미 보낸 수정 이벤트에는 합치지 않고 새로 기록
+    @Test
+    void update_after_sent_appends_new_row() throws Exception {
+        Long id = createTodo("sent then update");
+
+        updateTodo(id, "before send");
+        Long sentId = rows(TodoProducer.TODO_UPDATED, id).get(0).getId();
+        transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.markSent(List.of(sentId), LocalDateTime.now()));
+
+        updateTodo(id, "after send");
+
+        List<OutboxEvent> updates = rows(TodoProducer.TODO_UPDATED, id);
+        assertThat(updates).hasSize(2);
+        assertThat(titleOf(updates.get(0))).isEqualTo("before send");
+        assertThat(titleOf(updates.get(1))).isEqualTo("after send");
+        assertThat(updates.get(1).getSentAt()).isNull();
+    }
+
+
+
+    // relay가 전송 중으로 잡은 이벤트도 내용을 바꾸거나 지우지 않음
+    @Test
+    void leased_update_is_not_replaced_or_deleted() throws Exception {
+        Long id = createTodo("leased");
+
+        updateTodo(id, "leased update");
+        Long leasedId = rows(TodoProducer.TODO_UPDATED, id).get(0).getId();
+        transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.claim(List.of(leasedId), LocalDateTime.now().plusMinutes(2)));
+
+        updateTodo(id, "next update");
+        List<OutboxEvent> updates = rows(TodoProducer.TODO_UPDATED, id);
+        assertThat(updates).hasSize(2);
+        assertThat(titleOf(updates.get(0))).isEqualTo("leased update");
+
+        mockMvc.perform(delete("/api/todos/" + id)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        // 대기 중이던 두 번째만 지워짐
+        assertThat(rows(TodoProducer.TODO_UPDATED, id)).extracting(OutboxEvent::getId).containsExactly(leasedId);
+    }
+
+
+
+    // 전송 시각 (availableAt) 전에는 relay가 가져가지 않음
+    @Test
+    void findSendable_waits_for_availableAt() {
+        LocalDateTime now = LocalDateTime.now();
+        Long due = save(now.minusSeconds(1));
+        Long waiting = save(now.plusSeconds(2));
+
+        List<Long> sendable = transactionTemplate.execute(status ->
+                outboxEventRepository.findSendable(now, Limit.unlimited()).stream().map(OutboxEvent::getId).toList());
+
+        assertThat(sendable).contains(due).doesNotContain(waiting);
+    }
+
+
+
+    // 다른 relay가 같은 유저의 앞선 이벤트를 보내는 중이면 그 유저는 건너뜀 (relay 여러 대일 때 유저별 순서)
+    @Test
+    void earlier_in_flight_event_blocks_same_user() {
+        LocalDateTime now = LocalDateTime.now();
+        long user = System.nanoTime();
+        long other = user + 1;
+        Long inFlight = save(user, now.minusSeconds(1));
+        transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.claim(List.of(inFlight), now.plusMinutes(2)));
+        Long next = save(user, now.minusSeconds(1));
+        Long otherUser = save(other, now.minusSeconds(1));
+
+        List<Long> blocked = outboxEventRepository.findUsersWithEarlierInFlight(
+                List.of(user, other), List.of(next, otherUser), otherUser, now);
+
+        assertThat(blocked).containsExactly(user);
+    }
+
+
+
+    private Long save(LocalDateTime availableAt) {
+        return save(null, availableAt);
+    }
+
+    private Long save(Long userId, LocalDateTime availableAt) {
+        return outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(TodoProducer.TODO_UPDATED)
+                .aggregateId(-1L)
+                .userId(userId)
+                .payload(codecs.current().encode(List.of()))
+                .contentType(codecs.current().contentType())
+                .createdAt(LocalDateTime.now())
+                .availableAt(availableAt)
+                .build()).getId();
+    }
+
+
+    private List<OutboxEvent> rows(String eventType, Long aggregateId) {
+        return outboxEventRepository.findAll().stream()
+                .filter(event -> eventType.equals(event.getEventType()) && aggregateId.equals(event.getAggregateId()))
+                .sorted((a, b) -> a.getId().compareTo(b.getId()))
+                .toList();
+    }
+
+
+    private String titleOf(OutboxEvent event) {
+        return codecs.forContentType(event.getContentType()).decode(event.getPayload()).get(0).getTitle();
+    }
+
+
+    private void updateTodo(Long id, String title) throws Exception {
+        TodoDto dto = TodoDto.builder()
+                .title(title)
+                .completed(false)
+                .build();
+
+        mockMvc.perform(put("/api/todos/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk());
+    }
+
+
+    private Long createTodo(String title) throws Exception {
+        TodoDto dto = TodoDto.builder()
+                .title(title)
+                .completed(false)
+                .build();
+
+        MvcResult result = mockMvc.perform(post("/api/todos")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("data").get("id").asLong();
+    }
+}
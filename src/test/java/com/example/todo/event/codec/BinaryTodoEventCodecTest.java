@@ -0,0 +1,66 @@
+package com.example.todo.event.codec;
+
+import com.example.todo.dto.TodoDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BinaryTodoEventCodecTest {
+
+    private final BinaryTodoEventCodec codec = new BinaryTodoEventCodec();
+
+
+    @Test
+    void encode_decode_roundtrip() {
+        TodoDto full = TodoDto.builder()
+                .id(1L).title("제목").description("설명").completed(true).userId(7L).version(300L)
+                .build();
+        // null 필드는 null 그대로
+        TodoDto partial = TodoDto.builder().title("only title").build();
+
+        List<TodoDto> decoded = codec.decode(codec.encode(List.of(full, partial)));
+
+        assertThat(decoded).usingRecursiveFieldByFieldElementComparator().containsExactly(full, partial);
+    }
+
+
+    // 새 버전에서 todo 본문 끝에 필드가 추가돼도 지금 decoder는 건너뛰고 읽음
+    @Test
+    void decode_ignores_unknown_trailing_fields() {
+        TodoDto todo = TodoDto.builder().id(3L).title("a").userId(1L).build();
+        byte[] v1 = codec.encode(List.of(todo, todo));
+
+        // [magic][version][count] + ([length][body]) * 2 => 버전을 올리고 각 본문 뒤에 2바이트 추가
+        int bodyLength = v1[3];
+        byte[] body = Arrays.copyOfRange(v1, 4, 4 + bodyLength);
+
+        ByteArrayOutputStream v2 = new ByteArrayOutputStream();
+        v2.write(BinaryTodoEventCodec.MAGIC);
+        v2.write(2);
+        v2.write(2);
+        for(int i = 0; i < 2; i++) {
+            v2.write(bodyLength + 2);
+            v2.writeBytes(body);
+            v2.write(0x7F);
+            v2.write(0x01);
+        }
+
+        assertThat(codec.decode(v2.toByteArray()))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactly(todo, todo);
+    }
+
+
+    @Test
+    void decode_rejects_truncated_payload() {
+        byte[] encoded = codec.encode(List.of(TodoDto.builder().id(1L).title("title").build()));
+
+        assertThatThrownBy(() -> codec.decode(Arrays.copyOf(encoded, encoded.length - 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
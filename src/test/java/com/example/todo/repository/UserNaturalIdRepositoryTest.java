@@ -0,0 +1,75 @@
+package com.example.todo.repository;
+
+import com.example.todo.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// username 조회가 2차 캐시(natural id + 엔티티)를 타는지 hibernate 통계로 확인
+// 요청 밖(트랜잭션 / open-in-view 없음)에서 바로 호출
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class UserNaturalIdRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+
+
+    // 두 번째 조회부터는 sql 없이 캐시에서
+    @Test
+    void findByUsername_hits_cache_without_sql() {
+        User saved = saveUser();
+
+        userRepository.findByUsername(saved.getUsername()).orElseThrow();
+
+        statistics.clear();
+        User found = userRepository.findByUsername(saved.getUsername()).orElseThrow();
+
+        assertThat(found.getId()).isEqualTo(saved.getId());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getNaturalIdCacheHitCount() + statistics.getSecondLevelCacheHitCount()).isPositive();
+    }
+
+
+    // 비밀번호 재해시 (jpql update) 뒤에는 캐시가 비워져서 새 해시를 DB에서 읽음
+    @Test
+    void updatePassword_evicts_cached_user() {
+        User saved = saveUser();
+        userRepository.findByUsername(saved.getUsername()).orElseThrow();
+
+        assertThat(userRepository.updatePassword(saved.getId(), "old-hash", "new-hash")).isEqualTo(1);
+
+        statistics.clear();
+        User found = userRepository.findByUsername(saved.getUsername()).orElseThrow();
+
+        assertThat(found.getPassword()).isEqualTo("new-hash");
+        assertThat(statistics.getPrepareStatementCount()).isPositive();
+    }
+
+
+
+    private User saveUser() {
+        return userRepository.save(User.builder()
+                .username("naturalId" + System.nanoTime())
+                .password("old-hash")
+                .role("ROLE_USER")
+                .build());
+    }
+}